@@ -0,0 +1,25 @@
+package app;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@SpringBootApplication
+@EnableScheduling
+public class Application {
+
+    public static void main(String[] args) {
+        SpringApplication.run(Application.class, args);
+    }
+
+    // Generate bytecode accessors for entity properties in place of
+    // reflection. Spring Boot registers every Module bean with the
+    // ObjectMapper; inclusion is set by spring.jackson.* properties.
+    @Bean
+    public Module afterburnerModule() {
+        return new AfterburnerModule();
+    }
+}
@@ -0,0 +1,16 @@
+package app;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+
+@ResponseStatus(code=HttpStatus.BAD_REQUEST, reason="Bad request")
+public class BadRequestException extends AppException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+
+    public BadRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
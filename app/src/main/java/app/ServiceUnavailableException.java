@@ -0,0 +1,16 @@
+package app;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+
+@ResponseStatus(code=HttpStatus.SERVICE_UNAVAILABLE, reason="Service unavailable")
+public class ServiceUnavailableException extends AppException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    public ServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
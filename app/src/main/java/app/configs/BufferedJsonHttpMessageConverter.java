@@ -0,0 +1,78 @@
+package app.configs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Write JSON bodies into a buffer, then send them with a Content-Length.
+ * Without a length, the container sends the body chunked and compresses it
+ * whatever its size; with one, {@code server.compression.min-response-size}
+ * applies.
+ *
+ * Buffers are taken from and returned to a small shared pool rather than
+ * kept per thread, so they are reused whether requests run on pooled or
+ * virtual threads. A request that finds the pool empty allocates its own.
+ * At most {@link #POOLED_BUFFERS} buffers are kept, and one that grew past
+ * {@link #MAX_RETAINED_BYTES} for a large response is dropped afterwards.
+ */
+public class BufferedJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private static final int INITIAL_BYTES = 8 * 1024;
+    private static final int MAX_RETAINED_BYTES = 256 * 1024;
+    private static final int POOLED_BUFFERS = 16;
+
+    private final BlockingQueue<Buffer> buffers = new ArrayBlockingQueue<>(POOLED_BUFFERS);
+
+    public BufferedJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        Buffer pooled = buffers.poll();
+        Buffer buffer = pooled != null ? pooled : new Buffer();
+        try {
+            super.writeInternal(object, type, new HttpOutputMessage() {
+                @Override
+                public OutputStream getBody() {
+                    return buffer;
+                }
+
+                @Override
+                public HttpHeaders getHeaders() {
+                    return outputMessage.getHeaders();
+                }
+            });
+            // Headers are committed by the first call to getBody().
+            outputMessage.getHeaders().setContentLength(buffer.size());
+            buffer.writeTo(outputMessage.getBody());
+        } finally {
+            if (buffer.capacity() <= MAX_RETAINED_BYTES) {
+                buffer.reset();
+                buffers.offer(buffer);
+            }
+        }
+    }
+
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        Buffer() {
+            super(INITIAL_BYTES);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+
+} // class BufferedJsonHttpMessageConverter
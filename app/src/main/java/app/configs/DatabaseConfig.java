@@ -0,0 +1,254 @@
+package app.configs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.ToIntFunction;
+
+import javax.sql.DataSource;
+
+import app.dao.ReadWriteRoutingDataSource;
+import app.metrics.CountingStatementCache;
+import app.metrics.InstrumentedDataSource;
+import app.metrics.MetricsRegistry;
+import app.metrics.SqlBudgetStatementInspector;
+import app.metrics.SqlTimingSessionListener;
+import org.apache.tomcat.jdbc.pool.ConnectionPool;
+import org.apache.tomcat.jdbc.pool.PoolProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.boot.orm.jpa.hibernate.SpringPhysicalNamingStrategy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.util.StringUtils;
+
+@Configuration
+@EnableTransactionManagement
+public class DatabaseConfig {
+
+    @Value("${db.driver}")
+    private String DB_DRIVER;
+
+    @Value("${db.password}")
+    private String DB_PASSWORD;
+
+    @Value("${db.url}")
+    private String DB_URL;
+
+    @Value("${db.username}")
+    private String DB_USERNAME;
+
+    @Value("${db.connection-properties}")
+    private String DB_CONNECTION_PROPERTIES;
+
+    @Value("${db.statement-cache.size}")
+    private int DB_STATEMENT_CACHE_SIZE;
+
+    @Value("${db.pool.min-idle}")
+    private int DB_POOL_MIN_IDLE;
+
+    @Value("${db.pool.max-active}")
+    private int DB_POOL_MAX_ACTIVE;
+
+    @Value("${db.pool.max-wait-ms}")
+    private int DB_POOL_MAX_WAIT_MS;
+
+    @Value("${db.pool.max-lifetime-ms}")
+    private long DB_POOL_MAX_LIFETIME_MS;
+
+    @Value("${db.pool.leak-detection-threshold-s}")
+    private int DB_POOL_LEAK_DETECTION_THRESHOLD_S;
+
+    @Value("${db.pool.leak-detection-stack-traces}")
+    private boolean DB_POOL_LEAK_DETECTION_STACK_TRACES;
+
+    @Value("${db.replicas.urls}")
+    private String DB_REPLICAS_URLS;
+
+    @Value("${db.replicas.selection}")
+    private String DB_REPLICAS_SELECTION;
+
+    @Value("${db.replicas.read-your-writes}")
+    private boolean DB_REPLICAS_READ_YOUR_WRITES;
+
+    @Value("${db.replicas.retry-interval-ms}")
+    private long DB_REPLICAS_RETRY_INTERVAL_MS;
+
+    @Value("${hibernate.dialect}")
+    private String HIBERNATE_DIALECT;
+
+    @Value("${hibernate.show_sql}")
+    private String HIBERNATE_SHOW_SQL;
+
+    @Value("${hibernate.hbm2ddl.auto}")
+    private String HIBERNATE_HBM2DDL_AUTO;
+
+    @Value("${hibernate.jdbc.batch_size}")
+    private String HIBERNATE_JDBC_BATCH_SIZE;
+
+    @Value("${hibernate.generate_statistics}")
+    private String HIBERNATE_GENERATE_STATISTICS;
+
+    @Value("${hibernate.query.plan_cache_max_size}")
+    private String HIBERNATE_QUERY_PLAN_CACHE_MAX_SIZE;
+
+    @Value("${hibernate.query.plan_parameter_metadata_max_size}")
+    private String HIBERNATE_QUERY_PLAN_PARAMETER_METADATA_MAX_SIZE;
+
+    @Value("${hibernate.cache.use_second_level_cache}")
+    private String HIBERNATE_USE_SECOND_LEVEL_CACHE;
+
+    @Value("${hibernate.cache.region.factory_class}")
+    private String HIBERNATE_CACHE_REGION_FACTORY;
+
+    @Value("${entitymanager.packagesToScan}")
+    private String ENTITYMANAGER_PACKAGES_TO_SCAN;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    /**
+     * A bounded connection pool, wrapped so that the time spent acquiring each
+     * connection is recorded. Pool occupancy is published as gauges.
+     *
+     * When replicas are configured, each gets a pool of its own and
+     * read-only transactions are routed to them.
+     */
+    @Bean
+    public DataSource dataSource() {
+        CountingStatementCache.setCounters(metricsRegistry.counter("db.statement_cache.hits"),
+                metricsRegistry.counter("db.statement_cache.misses"));
+        org.apache.tomcat.jdbc.pool.DataSource pool = createPool(DB_URL);
+        metricsRegistry.gauge("db.pool.active", pool::getActive);
+        metricsRegistry.gauge("db.pool.idle", pool::getIdle);
+        metricsRegistry.gauge("db.pool.waiting", pool::getWaitCount);
+        metricsRegistry.gauge("db.pool.size", pool::getSize);
+        DataSource primary = new InstrumentedDataSource(pool, metricsRegistry.histogram("db.pool.acquire"));
+
+        String[] replicaUrls = StringUtils.commaDelimitedListToStringArray(DB_REPLICAS_URLS.trim());
+        if (replicaUrls.length == 0) {
+            return primary;
+        }
+        List<ReadWriteRoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.length; i++) {
+            String label = "{replica=\"" + i + "\"}";
+            org.apache.tomcat.jdbc.pool.DataSource replicaPool = createPool(replicaUrls[i].trim());
+            metricsRegistry.gauge("db.replica.pool.active" + label, () -> poolStat(replicaPool, ConnectionPool::getActive));
+            metricsRegistry.gauge("db.replica.pool.idle" + label, () -> poolStat(replicaPool, ConnectionPool::getIdle));
+            metricsRegistry.gauge("db.replica.pool.waiting" + label, () -> poolStat(replicaPool, ConnectionPool::getWaitCount));
+            metricsRegistry.gauge("db.replica.pool.size" + label, () -> poolStat(replicaPool, ConnectionPool::getSize));
+            ReadWriteRoutingDataSource.Replica replica = new ReadWriteRoutingDataSource.Replica(
+                    Integer.toString(i),
+                    new InstrumentedDataSource(replicaPool, metricsRegistry.histogram("db.replica.pool.acquire" + label)),
+                    () -> poolStat(replicaPool, ConnectionPool::getActive),
+                    metricsRegistry.counter("db.routing.replica" + label));
+            metricsRegistry.gauge("db.replica.up" + label, () -> replica.isUp() ? 1 : 0);
+            replicas.add(replica);
+        }
+        return new ReadWriteRoutingDataSource(primary, replicas,
+                ReadWriteRoutingDataSource.Selection.valueOf(DB_REPLICAS_SELECTION.trim().toUpperCase().replace('-', '_')),
+                DB_REPLICAS_READ_YOUR_WRITES,
+                DB_REPLICAS_RETRY_INTERVAL_MS,
+                metricsRegistry.counter("db.routing.primary"),
+                metricsRegistry.counter("db.routing.fallback"));
+    }
+
+    /**
+     * Read a statistic without opening the pool, which the pool's own
+     * getters do: a replica that is down must not fail the metrics.
+     */
+    private static int poolStat(org.apache.tomcat.jdbc.pool.DataSource pool, ToIntFunction<ConnectionPool> stat) {
+        ConnectionPool connectionPool = pool.getPool();
+        return connectionPool == null ? 0 : stat.applyAsInt(connectionPool);
+    }
+
+    private org.apache.tomcat.jdbc.pool.DataSource createPool(String url) {
+        PoolProperties properties = new PoolProperties();
+        properties.setDriverClassName(DB_DRIVER);
+        properties.setUrl(url);
+        properties.setUsername(DB_USERNAME);
+        properties.setPassword(DB_PASSWORD);
+        properties.setConnectionProperties(DB_CONNECTION_PROPERTIES);
+        properties.setInitialSize(DB_POOL_MIN_IDLE);
+        properties.setMinIdle(DB_POOL_MIN_IDLE);
+        properties.setMaxIdle(DB_POOL_MAX_ACTIVE);
+        properties.setMaxActive(DB_POOL_MAX_ACTIVE);
+        properties.setMaxWait(DB_POOL_MAX_WAIT_MS);
+        properties.setMaxAge(DB_POOL_MAX_LIFETIME_MS);
+        properties.setTestOnBorrow(true);
+        properties.setValidationQuery("SELECT 1");
+        properties.setValidationInterval(30000);
+        properties.setTimeBetweenEvictionRunsMillis(5000);
+        // Log (but do not reclaim) connections held longer than the threshold.
+        // Naming the borrower means capturing a stack trace on every borrow,
+        // which costs more than the query itself, so it is opt-in.
+        properties.setSuspectTimeout(DB_POOL_LEAK_DETECTION_THRESHOLD_S);
+        properties.setLogAbandoned(DB_POOL_LEAK_DETECTION_THRESHOLD_S > 0
+                && DB_POOL_LEAK_DETECTION_STACK_TRACES);
+        properties.setJmxEnabled(false);
+        if (DB_STATEMENT_CACHE_SIZE > 0) {
+            // Keep prepared statements open, so that running the same SQL
+            // again on a connection skips preparing it.
+            properties.setJdbcInterceptors(CountingStatementCache.class.getName()
+                    + "(prepared=true,callable=false,max=" + DB_STATEMENT_CACHE_SIZE + ")");
+        }
+        return new org.apache.tomcat.jdbc.pool.DataSource(properties);
+    }
+
+    /**
+     * The entity manager factory behind the DAOs' persistence context, built
+     * from the same Hibernate settings as the rest of this configuration.
+     */
+    @Bean
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource());
+        factoryBean.setPackagesToScan(ENTITYMANAGER_PACKAGES_TO_SCAN);
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaProperties(hibernateProperties());
+        return factoryBean;
+    }
+
+    private Properties hibernateProperties() {
+        Properties hibernateProperties = new Properties();
+        hibernateProperties.put("hibernate.dialect", HIBERNATE_DIALECT);
+        hibernateProperties.put("hibernate.show_sql", HIBERNATE_SHOW_SQL);
+        hibernateProperties.put("hibernate.hbm2ddl.auto", HIBERNATE_HBM2DDL_AUTO);
+        // Keep the column naming the auto-configured factory used.
+        hibernateProperties.put("hibernate.physical_naming_strategy", SpringPhysicalNamingStrategy.class.getName());
+        hibernateProperties.put("hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName());
+        // Group inserts and updates into JDBC batches. Sequence-based ids are
+        // required for inserts, because IDENTITY ids disable batching.
+        hibernateProperties.put("hibernate.id.new_generator_mappings", "true");
+        hibernateProperties.put("hibernate.jdbc.batch_size", HIBERNATE_JDBC_BATCH_SIZE);
+        hibernateProperties.put("hibernate.jdbc.batch_versioned_data", "true");
+        hibernateProperties.put("hibernate.order_inserts", "true");
+        hibernateProperties.put("hibernate.order_updates", "true");
+        hibernateProperties.put("hibernate.generate_statistics", HIBERNATE_GENERATE_STATISTICS);
+        hibernateProperties.put("hibernate.query.plan_cache_max_size", HIBERNATE_QUERY_PLAN_CACHE_MAX_SIZE);
+        hibernateProperties.put("hibernate.query.plan_parameter_metadata_max_size",
+                HIBERNATE_QUERY_PLAN_PARAMETER_METADATA_MAX_SIZE);
+        // Count statements and JDBC time against each request's SQL budget.
+        hibernateProperties.put("hibernate.session_factory.statement_inspector", SqlBudgetStatementInspector.class.getName());
+        hibernateProperties.put("hibernate.session.events.auto", SqlTimingSessionListener.class.getName());
+        // Entities opt in to the second-level cache with @Cache.
+        hibernateProperties.put("hibernate.cache.use_second_level_cache", HIBERNATE_USE_SECOND_LEVEL_CACHE);
+        hibernateProperties.put("hibernate.cache.region.factory_class", HIBERNATE_CACHE_REGION_FACTORY);
+        hibernateProperties.put("javax.persistence.sharedCache.mode", "ENABLE_SELECTIVE");
+        return hibernateProperties;
+    }
+
+    @Bean
+    public JpaTransactionManager transactionManager() {
+        JpaTransactionManager transactionManager
+                = new JpaTransactionManager();
+        transactionManager.setEntityManagerFactory(entityManagerFactory().getObject());
+        return transactionManager;
+    }
+
+} // class DatabaseConfig
@@ -0,0 +1,83 @@
+package app.configs;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.embedded.ConfigurableEmbeddedServletContainer;
+import org.springframework.boot.context.embedded.EmbeddedServletContainerCustomizer;
+import org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedServletContainerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+/**
+ * Run each HTTP request, and any asynchronous request processing such as a
+ * streamed response, on its own virtual thread instead of a thread from the
+ * container's pool. Enabled with {@code web.execution-mode: virtual}; needs
+ * Java 21 or later at runtime.
+ *
+ * Requests then no longer queue for a container thread, but they still
+ * queue for a database connection: the connection pool (db.pool.max-active)
+ * stays the bound on concurrent JDBC work.
+ */
+@Configuration
+@ConditionalOnProperty(name = "web.execution-mode", havingValue = "virtual")
+public class VirtualThreadConfig extends WebMvcConfigurerAdapter {
+
+    private static final String THREAD_NAME_PREFIX = "http-virtual-";
+
+    private final Log log = LogFactory.getLog(VirtualThreadConfig.class);
+
+    /**
+     * An executor that starts a new virtual thread per task. The application
+     * is compiled for Java 8, so the Java 21 API is reached reflectively.
+     */
+    @Bean
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class)
+                    .invoke(builder, THREAD_NAME_PREFIX, 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            ExecutorService executor = (ExecutorService) newExecutor.invoke(null, factory);
+            log.info("Handling requests on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("web.execution-mode: virtual requires Java 21 or later; running on "
+                    + System.getProperty("java.version"), e);
+        }
+    }
+
+    @Bean
+    public EmbeddedServletContainerCustomizer virtualThreadContainerCustomizer() {
+        final ExecutorService executor = virtualThreadExecutor();
+        return (ConfigurableEmbeddedServletContainer container) -> {
+            if (!(container instanceof TomcatEmbeddedServletContainerFactory)) {
+                throw new IllegalStateException("web.execution-mode: virtual is only supported on Tomcat");
+            }
+            ((TomcatEmbeddedServletContainerFactory) container).addConnectorCustomizers(connector -> {
+                ProtocolHandler handler = connector.getProtocolHandler();
+                if (handler instanceof AbstractProtocol) {
+                    ((AbstractProtocol<?>) handler).setExecutor(executor);
+                }
+            });
+        };
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new ConcurrentTaskExecutor(virtualThreadExecutor()));
+    }
+
+} // class VirtualThreadConfig
@@ -0,0 +1,47 @@
+package app.configs;
+
+import app.limits.RateLimitInterceptor;
+import app.metrics.EndpointMetricsInterceptor;
+import app.metrics.SqlBudgetInterceptor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+/**
+ * Register the interceptors that apply to every controller, and the JSON
+ * message converter.
+ */
+@Configuration
+public class WebConfig extends WebMvcConfigurerAdapter {
+
+    @Autowired
+    private EndpointMetricsInterceptor endpointMetricsInterceptor;
+
+    @Autowired
+    private RateLimitInterceptor rateLimitInterceptor;
+
+    @Autowired
+    private SqlBudgetInterceptor sqlBudgetInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Requests turned away by the rate limiter are still timed.
+        registry.addInterceptor(endpointMetricsInterceptor);
+        registry.addInterceptor(rateLimitInterceptor);
+        registry.addInterceptor(sqlBudgetInterceptor);
+    }
+
+    /**
+     * Replaces the converter Spring Boot would otherwise register, and uses
+     * the same ObjectMapper.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new BufferedJsonHttpMessageConverter(objectMapper);
+    }
+
+} // class WebConfig
@@ -0,0 +1,34 @@
+package app.controllers;
+
+import app.metrics.MetricsRegistry;
+import app.metrics.PrometheusFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(value = "/metrics")
+public class MetricsController {
+
+    @Autowired
+    private MetricsRegistry _metricsRegistry;
+
+    @RequestMapping(method = RequestMethod.GET)
+    public ResponseEntity<?> getAll() {
+        return new ResponseEntity<>(_metricsRegistry.snapshot(), HttpStatus.OK);
+    }
+
+    /**
+     * The same metrics in the Prometheus text format, for scraping.
+     */
+    @RequestMapping(value = "/prometheus", method = RequestMethod.GET)
+    public ResponseEntity<String> getPrometheus() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, PrometheusFormat.CONTENT_TYPE);
+        return new ResponseEntity<>(PrometheusFormat.format(_metricsRegistry), headers, HttpStatus.OK);
+    }
+}
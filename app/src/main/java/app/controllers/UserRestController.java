@@ -0,0 +1,405 @@
+package app.controllers;
+
+import app.BadRequestException;
+import app.NotFoundException;
+import app.models.User;
+import app.dao.AbstractDao;
+import app.dao.KeysetPage;
+import app.dao.UserDao;
+import app.dao.UserEmailFilter;
+import app.limits.EndpointClass;
+import app.limits.RateLimit;
+import app.metrics.SqlBudget;
+import app.util.JsonPatch;
+import app.util.Util;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping(value = "/user")
+public class UserRestController {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 10000;
+    private static final int MAX_BULK_SIZE = 10000;
+    private static final int MAX_BULK_DELETE_SIZE = 100000;
+    private static final Set<String> BULK_UPDATABLE_PROPERTIES = Collections.singleton("name");
+    private static final int DEFAULT_SEARCH_SIZE = 20;
+    private static final int MAX_SEARCH_SIZE = 100;
+    private static final int MAX_SEARCH_DEPTH = 1000;
+    private static final int MAX_SEARCH_QUERY_LENGTH = 100;
+    private static final int STREAM_FLUSH_INTERVAL = 1000;
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    private static final MediaType APPLICATION_NDJSON = MediaType.valueOf("application/x-ndjson");
+
+    @Autowired
+    private UserDao _userDao;
+
+    @Autowired
+    private UserEmailFilter _userEmailFilter;
+
+    @Autowired
+    private ObjectMapper _objectMapper;
+
+    @Autowired
+    private Validator _validator;
+
+    private ObjectWriter _streamWriter;
+
+    /**
+     * Build the writer for streamed users once, so that its serializer is
+     * looked up here rather than on every request.
+     */
+    @PostConstruct
+    public void init() {
+        _streamWriter = _objectMapper.writerFor(User.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @RequestMapping(method = RequestMethod.DELETE)
+    public String delete(int id) {
+        try {
+            User user = new User(id);
+            _userDao.delete(user);
+        } catch (Exception ex) {
+            return ex.getMessage();
+        }
+        return "User succesfully deleted!";
+    }
+
+    /**
+     * Delete the users whose ids are listed in the request body, without
+     * loading them. Returns the number deleted.
+     */
+    @RateLimit(EndpointClass.BULK)
+    @RequestMapping(value = "/bulk", method = RequestMethod.DELETE)
+    public ResponseEntity<?> deleteAll(@RequestBody List<Integer> ids) {
+        if (ids.size() > MAX_BULK_DELETE_SIZE) {
+            throw new BadRequestException("at most " + MAX_BULK_DELETE_SIZE + " users may be deleted at once");
+        }
+        return new ResponseEntity<>(Collections.singletonMap("deleted", _userDao.deleteAll(ids)), HttpStatus.OK);
+    }
+
+    /**
+     * Delete every user whose email matches a SQL LIKE pattern, in one
+     * statement. Returns the number deleted.
+     */
+    @RateLimit(EndpointClass.BULK)
+    @RequestMapping(method = RequestMethod.DELETE, params = "emailLike")
+    public ResponseEntity<?> deleteWhere(@RequestParam(name = "emailLike") String emailLike) {
+        int deleted = _userDao.deleteWhere(emailLike(emailLike));
+        return new ResponseEntity<>(Collections.singletonMap("deleted", deleted), HttpStatus.OK);
+    }
+
+    /**
+     * Set the name of every user whose email matches a SQL LIKE pattern, in
+     * one statement. The body holds the new values, for example
+     * {@code {"name": "Archived"}}. Returns the number updated.
+     */
+    @RateLimit(EndpointClass.BULK)
+    @RequestMapping(method = RequestMethod.PATCH, params = "emailLike",
+            consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> updateWhere(@RequestParam(name = "emailLike") String emailLike,
+            @RequestBody Map<String, Object> values) {
+        if (values.isEmpty() || !BULK_UPDATABLE_PROPERTIES.containsAll(values.keySet())) {
+            throw new BadRequestException("only " + BULK_UPDATABLE_PROPERTIES + " may be updated in bulk");
+        }
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            if (!_validator.validateValue(User.class, value.getKey(), value.getValue()).isEmpty()) {
+                throw new BadRequestException("invalid " + value.getKey());
+            }
+        }
+        int updated = _userDao.updateWhere(values, emailLike(emailLike));
+        return new ResponseEntity<>(Collections.singletonMap("updated", updated), HttpStatus.OK);
+    }
+
+    private static AbstractDao.Condition<User> emailLike(String pattern) {
+        if (pattern.isEmpty()) {
+            throw new BadRequestException("emailLike must not be empty");
+        }
+        return (builder, root) -> builder.like(root.get("email"), pattern);
+    }
+
+    /**
+     * Stream every user as a JSON array, or as newline-delimited JSON if the
+     * client accepts {@code application/x-ndjson}. Users are written as they
+     * are read, so memory use does not grow with the size of the table.
+     */
+    @RateLimit(EndpointClass.SCAN)
+    @RequestMapping(method = RequestMethod.GET, params = {"!after", "!limit"})
+    public ResponseEntity<StreamingResponseBody> getAll(
+            @RequestHeader(name = "Accept", required = false) String accept) {
+        boolean ndjson = accept != null && accept.contains(APPLICATION_NDJSON.toString());
+        StreamingResponseBody body = out -> writeAll(out, ndjson);
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(_userDao.getToTalCount()))
+                .contentType(ndjson ? APPLICATION_NDJSON : MediaType.APPLICATION_JSON_UTF8)
+                .body(body);
+    }
+
+    /**
+     * Report the number of users in the X-Total-Count header, without a
+     * body.
+     */
+    @RequestMapping(method = RequestMethod.HEAD)
+    public ResponseEntity<?> getCount() {
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(_userDao.getToTalCount()))
+                .build();
+    }
+
+    private void writeAll(OutputStream out, boolean ndjson) throws IOException {
+        try (JsonGenerator generator = _objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            if (!ndjson) {
+                generator.writeStartArray();
+            }
+            long[] written = new long[1];
+            _userDao.streamAll(user -> {
+                _streamWriter.writeValue(generator, user);
+                if (ndjson) {
+                    generator.writeRaw('\n');
+                }
+                if (++written[0] % STREAM_FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            });
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    /**
+     * Return one page of users ordered by id. The {@code after} cursor comes
+     * from the {@code next} field of the previous page; omit it to start at
+     * the beginning.
+     */
+    @RequestMapping(method = RequestMethod.GET)
+    public ResponseEntity<?> getPage(
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Integer lastId = null;
+        if (after != null && !after.isEmpty()) {
+            try {
+                lastId = KeysetPage.decodeCursor(after);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("invalid page cursor", e);
+            }
+        }
+        KeysetPage<User> page = _userDao.getPageAfter(lastId, pageSize);
+        long totalCount = _userDao.getToTalCount();
+        // The page still has to be read, but a matching If-None-Match skips
+        // serializing it.
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(totalCount))
+                .eTag(Util.getEntityTag(page.getItems(), totalCount))
+                .body(page);
+    }
+
+    /**
+     * Return one user, tagged with its id and version. A request whose
+     * If-None-Match still matches is answered 304 from the user's version
+     * alone, read from the second-level cache or a version-only query.
+     */
+    @RequestMapping(value = "/{userId}", method = RequestMethod.GET)
+    public ResponseEntity<?> getByUserId(@PathVariable Integer userId, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Integer version = _userDao.getVersion(userId);
+            if (version != null && request.checkNotModified(Util.getEntityTag(userId, version))) {
+                return null;
+            }
+        }
+        User user = _userDao.get(userId);
+        if (user == null) {
+            return new ResponseEntity<>(HttpStatus.OK);
+        }
+        return ResponseEntity.ok().eTag(Util.getEntityTag(user)).body(user);
+    }
+
+    /**
+     * Apply an RFC 6902 JSON Patch to one user. Only the columns the patch
+     * changes are written, and only if the user is still at the version the
+     * client last saw: the one in If-Match, if sent, else the one read here.
+     * Returns the patched user with its new ETag.
+     */
+    @RequestMapping(value = "/{userId}", method = RequestMethod.PATCH,
+            consumes = {"application/json-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patch(@PathVariable Integer userId, @RequestBody JsonNode patch,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Integer expectedVersion = ifMatch == null ? null : versionFromEntityTag(userId, ifMatch);
+        User user = _userDao.patch(userId, expectedVersion, current -> applyPatch(patch, current));
+        return ResponseEntity.ok().eTag(Util.getEntityTag(user)).body(user);
+    }
+
+    private User applyPatch(JsonNode patch, User user) {
+        JsonNode patched;
+        try {
+            patched = JsonPatch.apply(patch, _objectMapper.valueToTree(user));
+        } catch (IllegalArgumentException e) {
+            throw new AbstractDao.MalformedPatchException(e);
+        } catch (IllegalStateException e) {
+            throw new AbstractDao.UnprocessablePatchException(e);
+        }
+        try {
+            return _objectMapper.readerFor(User.class)
+                    .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .readValue(patched);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new AbstractDao.UnprocessablePatchException(e);
+        }
+    }
+
+    /**
+     * Return the version named by an If-Match header, or null for "*".
+     */
+    private static Integer versionFromEntityTag(int userId, String ifMatch) {
+        String tag = ifMatch.trim();
+        if ("*".equals(tag)) {
+            return null;
+        }
+        String prefix = "\"" + userId + "-";
+        if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+            try {
+                return Integer.valueOf(tag.substring(prefix.length(), tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // fall through
+            }
+        }
+        throw new BadRequestException("If-Match must be an ETag returned for this user");
+    }
+
+    /**
+     * Return the users whose ids are listed in the request body, in request
+     * order, together with the ids that were not found.
+     */
+    @RateLimit(EndpointClass.BULK)
+    @RequestMapping(value = "/batch", method = RequestMethod.POST)
+    public ResponseEntity<?> getBatch(@RequestBody List<Integer> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("at most " + MAX_BATCH_SIZE + " ids may be requested at once");
+        }
+        return new ResponseEntity<>(_userDao.getBatch(ids), HttpStatus.OK);
+    }
+
+    /**
+     * Return one page of the users whose email or name contains {@code q},
+     * ignoring case. Users whose email, name or a word of the name equals or
+     * starts with {@code q} come first. The {@code next} field of the result
+     * is the offset of the following page.
+     */
+    @RequestMapping(value = "/search", method = RequestMethod.GET)
+    public ResponseEntity<?> search(@RequestParam(name = "q") String q,
+            @RequestParam(name = "offset", required = false) Integer offset,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        if (q.trim().isEmpty() || q.length() > MAX_SEARCH_QUERY_LENGTH) {
+            throw new BadRequestException("q must have 1 to " + MAX_SEARCH_QUERY_LENGTH + " characters");
+        }
+        int pageSize = limit == null ? DEFAULT_SEARCH_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_SEARCH_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_SEARCH_SIZE);
+        }
+        int from = offset == null ? 0 : offset;
+        if (from < 0 || from + pageSize > MAX_SEARCH_DEPTH) {
+            throw new BadRequestException("only the first " + MAX_SEARCH_DEPTH + " results can be paged through");
+        }
+        return new ResponseEntity<>(_userDao.search(q, from, pageSize), HttpStatus.OK);
+    }
+
+    @RequestMapping(value = "/get-by-email", method = RequestMethod.GET)
+    public ResponseEntity<?> getByEmail(@RequestParam(name = "email") String email) {
+        if (!_userEmailFilter.mightContain(email)) {
+            throw new NotFoundException("no user with this email");
+        }
+        User user = _userDao.getByEmail(email);
+        if (user == null) {
+            throw new NotFoundException("no user with this email");
+        }
+        return ResponseEntity.ok().eTag(Util.getEntityTag(user)).body(user);
+    }
+
+    /**
+     * Answer 200 if a user has this email and 404 otherwise. Emails the
+     * filter has never seen are answered without a database query.
+     */
+    @RequestMapping(value = "/email/{email:.+}", method = RequestMethod.HEAD)
+    public ResponseEntity<?> existsByEmail(@PathVariable String email) {
+        if (!_userEmailFilter.mightContain(email) || !_userDao.existsByEmail(email)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    @RequestMapping(method = RequestMethod.PUT)
+    public ResponseEntity<?> create(@RequestBody User user) {
+        _userDao.save(user);
+        return new ResponseEntity<>(user, HttpStatus.CREATED);
+    }
+
+    /**
+     * Create many users in one request using batched inserts. Returns the ids
+     * assigned to the new users, in request order.
+     *
+     * Every 50 users take one id sequence call (the allocation size) and one
+     * insert batch (the default JDBC batch size), and the SQL budget allows
+     * for that.
+     */
+    @SqlBudget(maxStatements = 2 * MAX_BULK_SIZE / 50, maxRepeats = MAX_BULK_SIZE / 50)
+    @RateLimit(EndpointClass.BULK)
+    @RequestMapping(value = "/bulk", method = RequestMethod.PUT)
+    public ResponseEntity<?> createAll(@RequestBody List<User> users) {
+        if (users.size() > MAX_BULK_SIZE) {
+            throw new BadRequestException("at most " + MAX_BULK_SIZE + " users may be created at once");
+        }
+        _userDao.saveAll(users);
+        int[] ids = new int[users.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = users.get(i).getId();
+        }
+        return new ResponseEntity<>(ids, HttpStatus.CREATED);
+    }
+
+    /**
+     * Answer 409 when a write would give two users the same email, which the
+     * unique index on users.email rejects when the transaction commits.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public void conflict(HttpServletResponse response) throws IOException {
+        response.sendError(HttpStatus.CONFLICT.value(), "a user with this email already exists");
+    }
+}
@@ -0,0 +1,685 @@
+package app.dao;
+
+import app.limits.Bulk;
+import app.util.IntHashSet;
+import app.util.Util;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.Cache;
+import org.hibernate.CacheMode;
+import org.hibernate.Criteria;
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.StaleObjectStateException;
+import org.hibernate.StaleStateException;
+import org.hibernate.criterion.CriteriaSpecification;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.type.Type;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import javax.persistence.EntityManager;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Table;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.validation.ConstraintViolationException;
+
+/**
+ * Provide methods for reading and writing objects from persistent storage.
+ */
+@Transactional
+@Repository
+public abstract class AbstractDao<T> {
+
+    /**
+     * The most bind parameters the PostgreSQL wire protocol allows in a
+     * single statement.
+     */
+    private static final int MAX_BIND_PARAMETERS = 32767;
+
+    private static final String APPROXIMATE_COUNT_MODE = "approximate";
+
+    @Value("${dao.batch-fetch-size}")
+    private int batchFetchSize;
+
+    @Value("${dao.stream-fetch-size}")
+    private int streamFetchSize;
+
+    @Value("${hibernate.jdbc.batch_size}")
+    private int jdbcBatchSize;
+
+    @Value("${dao.count.mode}")
+    private String countMode;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+    private final Class<?> entityClass;
+    // Queries on the entity, as HQL whose plans Hibernate caches, rather
+    // than Criteria, which are translated to SQL on every call.
+    private final String versionQuery;
+    private final String allQuery;
+    private final String orderedQuery;
+    private final String afterIdQuery;
+    private final String byIdsQuery;
+    private final Log log = LogFactory.getLog(AbstractDao.class);
+    private final RowCounter rowCounter = new RowCounter();
+
+    public AbstractDao() {
+        this.entityClass = Util.getFirstGenericParameter(getClass());
+        String from = "from " + entityClass.getName() + " e";
+        this.versionQuery = "select e.version " + from + " where e.id = :id";
+        this.allQuery = from;
+        this.orderedQuery = from + " order by e.id";
+        this.afterIdQuery = from + " where e.id > :lastId order by e.id";
+        this.byIdsQuery = from + " where e.id in (:ids)";
+    }
+
+    protected int getStreamFetchSize() {
+        return streamFetchSize;
+    }
+
+    protected Session getCurrentSession() {
+        return entityManager.unwrap(Session.class);
+    }
+
+    /**
+     * Return the number of rows without scanning the table. In the default
+     * counter mode this is a {@link RowCounter}, counted once from the table
+     * and then adjusted as creates and deletes through this DAO commit. It
+     * does not see writes made by other instances, which it picks up only
+     * when {@link #refreshRowCount} next runs. With {@code dao.count.mode}
+     * set to {@code approximate}, PostgreSQL's planner estimate is returned
+     * instead, falling back to the counter on other databases.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Long getToTalCount() {
+        if (APPROXIMATE_COUNT_MODE.equals(countMode)) {
+            Long estimate = estimateRowCount();
+            if (estimate != null) {
+                return estimate;
+            }
+        }
+        return rowCounter.get(() -> {
+            // Changes are counted as they commit, so the table is counted on
+            // the primary, which already has them.
+            ReadWriteRoutingDataSource.readFromPrimary();
+            return countRows();
+        });
+    }
+
+    /**
+     * Count the table again, correcting drift caused by writes that bypass
+     * this DAO, including those made by other instances.
+     */
+    @Bulk
+    @Transactional(readOnly = true)
+    public void refreshRowCount() {
+        ReadWriteRoutingDataSource.readFromPrimary();
+        if (!rowCounter.reseed(this::countRows)) {
+            log.info("Row count of " + entityClass.getSimpleName() + " not refreshed: writes kept committing");
+        }
+    }
+
+    private long countRows() {
+        Criteria criteria = getCurrentSession().createCriteria(entityClass);
+        criteria.setProjection(Projections.rowCount());
+        return (Long) criteria.uniqueResult();
+    }
+
+    private Long estimateRowCount() {
+        Session session = getCurrentSession();
+        SessionFactoryImplementor sessionFactory = (SessionFactoryImplementor) session.getSessionFactory();
+        if (!(sessionFactory.getDialect() instanceof PostgreSQL81Dialect)) {
+            return null;
+        }
+        Table table = entityClass.getAnnotation(Table.class);
+        String tableName = table != null && !table.name().isEmpty() ? table.name() : entityClass.getSimpleName();
+        Number estimate = (Number) session
+                .createSQLQuery("SELECT reltuples FROM pg_class WHERE oid = to_regclass(:table)")
+                .setParameter("table", tableName)
+                .uniqueResult();
+        // reltuples is negative for tables that have never been analyzed.
+        if (estimate == null || estimate.doubleValue() < 0) {
+            return null;
+        }
+        return estimate.longValue();
+    }
+
+    /**
+     * Apply a change to the row counter once the current transaction
+     * commits, or immediately when there is no transaction.
+     */
+    protected void adjustRowCount(final long delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            rowCounter.add(delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            private boolean committing;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                committing = true;
+                rowCounter.committing();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (committing) {
+                    rowCounter.completed(delta, status == STATUS_COMMITTED);
+                }
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    @Transactional(readOnly = true)
+    public T get(int id) {
+        Session session = getCurrentSession();
+        return (T) session.get(entityClass, id);
+    }
+
+    /**
+     * Return the current version of an entity, or null if there is none with
+     * this id. An entity in the second-level cache is answered from there;
+     * otherwise only the version column is read. The entity must have a
+     * {@code version} property.
+     */
+    @SuppressWarnings("unchecked")
+    @Transactional(readOnly = true)
+    public Integer getVersion(int id) {
+        Session session = getCurrentSession();
+        if (session.getSessionFactory().getCache().containsEntity(entityClass, id)) {
+            T entity = (T) session.get(entityClass, id);
+            if (entity != null) {
+                return Util.getObjectVersion(entity);
+            }
+        }
+        return (Integer) session.createQuery(versionQuery)
+                .setParameter("id", id)
+                .uniqueResult();
+    }
+
+    @Bulk
+    @Transactional(readOnly = true)
+    public Iterable<T> getAll() {
+        Session session = getCurrentSession();
+        @SuppressWarnings("unchecked")
+        List<T> list = session.createQuery(allQuery).list();
+        return list;
+    }
+
+    /**
+     * Pass every entity, in id order, to the callback without holding the
+     * whole table in memory. Rows are read through a forward-only cursor
+     * {@code dao.stream-fetch-size} at a time, and the session is cleared
+     * after each such block so that loaded entities can be collected.
+     *
+     * @return the number of entities streamed.
+     */
+    @Bulk
+    @Transactional(readOnly = true)
+    public long streamAll(EntityCallback<T> callback) throws IOException {
+        Session session = getCurrentSession();
+        ScrollableResults results = session.createQuery(orderedQuery)
+                .setFetchSize(streamFetchSize)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        long count = 0;
+        try {
+            while (results.next()) {
+                @SuppressWarnings("unchecked")
+                T entity = (T) results.get(0);
+                callback.accept(entity);
+                if (++count % streamFetchSize == 0) {
+                    session.clear();
+                }
+            }
+        } finally {
+            results.close();
+        }
+        return count;
+    }
+
+    /**
+     * Return the entities with the given ids in request order, skipping ids
+     * that do not exist. See {@link #getBatch(Iterable)}.
+     */
+    @Bulk
+    @Transactional(readOnly = true)
+    public Iterable<T> getAll(Iterable<Integer> ids) {
+        return getBatch(ids).getFound();
+    }
+
+    /**
+     * Load the entities with the given ids using chunked {@code IN} queries
+     * rather than one query per id. Duplicate and null ids are ignored. The
+     * result lists the entities in the order their ids first appear and
+     * reports the ids that were not found.
+     */
+    @Bulk
+    @Transactional(readOnly = true)
+    public BatchResult<T> getBatch(Iterable<Integer> ids) {
+        int[] unique = uniqueIds(ids);
+        int count = unique.length;
+
+        Session session = getCurrentSession();
+        Map<Integer, T> byId = new HashMap<Integer, T>(count * 4 / 3 + 1);
+
+        // Entities already in the second-level cache need no query.
+        Cache cache = session.getSessionFactory().getCache();
+        int[] uncachedIds = new int[count];
+        int uncached = 0;
+        for (int i = 0; i < count; i++) {
+            if (cache.containsEntity(entityClass, unique[i])) {
+                @SuppressWarnings("unchecked")
+                T entity = (T) session.get(entityClass, unique[i]);
+                if (entity != null) {
+                    byId.put(unique[i], entity);
+                    continue;
+                }
+            }
+            uncachedIds[uncached++] = unique[i];
+        }
+
+        int chunkSize = Math.max(1, Math.min(batchFetchSize, MAX_BIND_PARAMETERS));
+        for (int from = 0; from < uncached; from += chunkSize) {
+            int to = Math.min(from + chunkSize, uncached);
+            @SuppressWarnings("unchecked")
+            List<T> entities = session.createQuery(byIdsQuery)
+                    .setParameterList("ids", paddedIds(uncachedIds, from, to, chunkSize))
+                    .list();
+            for (T entity : entities) {
+                byId.put(Util.getObjectId(entity), entity);
+            }
+        }
+
+        List<T> found = new ArrayList<T>(byId.size());
+        int[] missing = new int[count - byId.size()];
+        int missingCount = 0;
+        for (int i = 0; i < count; i++) {
+            T entity = byId.get(unique[i]);
+            if (entity != null) {
+                found.add(entity);
+            } else {
+                missing[missingCount++] = unique[i];
+            }
+        }
+        return new BatchResult<T>(found, missing);
+    }
+
+    @Transactional(readOnly = true)
+    public Iterable<T> getAll(int offset, int limit) {
+        Session session = getCurrentSession();
+        @SuppressWarnings("unchecked")
+        Criteria criteria = session.createCriteria(entityClass);
+        criteria.setProjection(Projections.distinct(Projections.property("id")));
+        criteria.setFirstResult(offset * limit - limit);
+        criteria.setMaxResults(limit);
+        criteria.addOrder(Order.asc("id"));
+        List uniqueSubList = criteria.list();
+        criteria.setProjection(null);
+        criteria.setFirstResult(0);
+        criteria.setMaxResults(Integer.MAX_VALUE);
+        criteria.add(Restrictions.in("id", uniqueSubList));
+        criteria.setResultTransformer(CriteriaSpecification.DISTINCT_ROOT_ENTITY);
+        List searchResults = criteria.list();
+
+        return searchResults;
+    }
+
+    /**
+     * Return up to {@code limit} entities whose id is greater than
+     * {@code lastId}, in id order, using a single range query on the primary
+     * key. Pass null to start from the beginning. Unlike
+     * {@link #getAll(int, int)}, the cost of a page does not depend on how
+     * deep it is.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<T> getPageAfter(Integer lastId, int limit) {
+        Session session = getCurrentSession();
+        Query query = lastId == null
+                ? session.createQuery(orderedQuery)
+                : session.createQuery(afterIdQuery).setParameter("lastId", lastId);
+        // Fetch one extra row to learn whether another page follows.
+        @SuppressWarnings("unchecked")
+        List<T> list = query.setMaxResults(limit + 1).list();
+        if (list.size() <= limit) {
+            return new KeysetPage<T>(list, null);
+        }
+        list = new ArrayList<T>(list.subList(0, limit));
+        int nextLastId = Util.getObjectId(list.get(limit - 1));
+        return new KeysetPage<T>(list, KeysetPage.encodeCursor(nextLastId));
+    }
+
+    @Transactional
+    public void create(T entity) {
+        Session session = getCurrentSession();
+        session.save(entity);
+        adjustRowCount(1);
+    }
+
+    /**
+     * Insert all entities in one transaction. The session is flushed and
+     * cleared every {@code hibernate.jdbc.batch_size} entities, so the inserts
+     * go out as JDBC batches and the persistence context stays small. With
+     * batching disabled (a batch size of 0), it is flushed after every entity.
+     */
+    @Bulk
+    @Transactional
+    public void createAll(Collection<? extends T> entities) {
+        Session session = getCurrentSession();
+        int flushEvery = Math.max(1, jdbcBatchSize);
+        int count = 0;
+        for (T entity : entities) {
+            session.save(entity);
+            if (++count % flushEvery == 0) {
+                session.flush();
+                session.clear();
+            }
+        }
+        session.flush();
+        session.clear();
+        adjustRowCount(count);
+    }
+
+    @Transactional
+    public void update(T entity) {
+        Session session = getCurrentSession();
+        session.update(entity);
+    }
+
+    /**
+     * Apply a patch to one entity and write only the columns it changed, in
+     * a single UPDATE guarded by the entity's version. The patcher is given
+     * the current entity, which it must not modify, and returns the patched
+     * copy. Nothing is written if the patch changes nothing. The entity
+     * class must use dynamic updates and have a version.
+     *
+     * @param expectedVersion the version the patch was made against, or null
+     *        to only guard against writes between this read and the update.
+     * @return the updated entity, with its new version.
+     * @throws NotFoundPatchException if there is no entity with this id.
+     * @throws ConcurrentModificationPatchException if the entity is at
+     *         another version or is updated concurrently.
+     * @throws UnprocessablePatchException if the patched entity changes the
+     *         id or fails validation or a database constraint.
+     */
+    @SuppressWarnings("unchecked")
+    @Transactional
+    public T patch(int id, Integer expectedVersion, UnaryOperator<T> patcher) {
+        Session session = getCurrentSession();
+        T entity = (T) session.get(entityClass, id);
+        if (entity == null) {
+            throw new NotFoundPatchException();
+        }
+        if (expectedVersion != null && expectedVersion != Util.getObjectVersion(entity)) {
+            throw new ConcurrentModificationPatchException(
+                    new StaleObjectStateException(entityClass.getName(), id));
+        }
+        T patched = patcher.apply(entity);
+        if (Util.getObjectId(patched) != id) {
+            throw new UnprocessablePatchException(new IllegalArgumentException("the id cannot be patched"));
+        }
+
+        ClassMetadata metadata = session.getSessionFactory().getClassMetadata(entityClass);
+        String[] names = metadata.getPropertyNames();
+        Type[] types = metadata.getPropertyTypes();
+        int versionProperty = metadata.getVersionProperty();
+        for (int i = 0; i < names.length; i++) {
+            Object value = metadata.getPropertyValue(patched, names[i]);
+            if (i != versionProperty && !types[i].isEqual(metadata.getPropertyValue(entity, names[i]), value)) {
+                metadata.setPropertyValue(entity, names[i], value);
+            }
+        }
+        try {
+            session.flush();
+        } catch (StaleStateException | OptimisticLockException e) {
+            throw new ConcurrentModificationPatchException(e);
+        } catch (ConstraintViolationException | org.hibernate.exception.ConstraintViolationException e) {
+            throw new UnprocessablePatchException(e);
+        }
+        return entity;
+    }
+
+    /**
+     * Delete the entities with the given ids without loading them, in as
+     * few DELETE statements as the bind parameter limit allows. Duplicate
+     * and null ids are ignored.
+     *
+     * Like every bulk statement, this bypasses the persistence context, and
+     * Hibernate invalidates the entity's second-level cache region.
+     *
+     * @return the number of entities deleted.
+     */
+    @Bulk
+    @Transactional
+    public int deleteAll(Iterable<Integer> ids) {
+        int[] unique = uniqueIds(ids);
+        int deleted = 0;
+        for (int from = 0; from < unique.length; from += MAX_BIND_PARAMETERS) {
+            List<Integer> chunk = paddedIds(unique, from, Math.min(from + MAX_BIND_PARAMETERS, unique.length),
+                    MAX_BIND_PARAMETERS);
+            deleted += executeDelete((builder, root) -> root.get("id").in(chunk));
+        }
+        adjustRowCount(-deleted);
+        return deleted;
+    }
+
+    /**
+     * Delete every entity matching the condition in one DELETE statement,
+     * without loading them. The entity's second-level cache region is
+     * invalidated.
+     *
+     * @return the number of entities deleted.
+     */
+    @Bulk
+    @Transactional
+    public int deleteWhere(Condition<T> condition) {
+        int deleted = executeDelete(condition);
+        adjustRowCount(-deleted);
+        return deleted;
+    }
+
+    /**
+     * Set properties of every entity matching the condition in one UPDATE
+     * statement, without loading them. The version of a versioned entity is
+     * incremented, so that concurrent optimistic updates of those entities
+     * fail. The entity's second-level cache region is invalidated.
+     *
+     * @param values new values by property name.
+     * @return the number of entities updated.
+     */
+    @SuppressWarnings("unchecked")
+    @Bulk
+    @Transactional
+    public int updateWhere(Map<String, ?> values, Condition<T> condition) {
+        Class<T> type = (Class<T>) entityClass;
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<T> update = builder.createCriteriaUpdate(type);
+        Root<T> root = update.from(type);
+        for (Map.Entry<String, ?> value : values.entrySet()) {
+            update.set(root.<Object>get(value.getKey()), value.getValue());
+        }
+        ClassMetadata metadata = getCurrentSession().getSessionFactory().getClassMetadata(entityClass);
+        if (metadata.isVersioned()) {
+            Path<Integer> version = root.get(metadata.getPropertyNames()[metadata.getVersionProperty()]);
+            update.set(version, builder.sum(version, 1));
+        }
+        update.where(condition.toPredicate(builder, root));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    /**
+     * Return the given properties of every entity matching the condition,
+     * one array per entity, without loading the entities.
+     */
+    @SuppressWarnings("unchecked")
+    protected List<Object[]> selectWhere(Condition<T> condition, String... properties) {
+        Class<T> type = (Class<T>) entityClass;
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = builder.createQuery(Object[].class);
+        Root<T> root = query.from(type);
+        Selection<?>[] selections = new Selection<?>[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            selections[i] = root.get(properties[i]);
+        }
+        query.multiselect(selections).where(condition.toPredicate(builder, root));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private int executeDelete(Condition<T> condition) {
+        Class<T> type = (Class<T>) entityClass;
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaDelete<T> delete = builder.createCriteriaDelete(type);
+        delete.where(condition.toPredicate(builder, delete.from(type)));
+        return entityManager.createQuery(delete).executeUpdate();
+    }
+
+    /**
+     * Return ids[from..to) as a list padded with repeats of the last id to a
+     * power of two no greater than max. Each length of an IN list is a
+     * separate query plan and prepared statement; padding keeps their number
+     * down to a handful.
+     */
+    private static List<Integer> paddedIds(int[] ids, int from, int to, int max) {
+        int padded = to - from <= 1 ? 1 : Math.min(Integer.highestOneBit(to - from - 1) << 1, max);
+        List<Integer> list = new ArrayList<Integer>(Math.max(padded, to - from));
+        for (int i = from; i < to; i++) {
+            list.add(ids[i]);
+        }
+        while (list.size() < padded) {
+            list.add(ids[to - 1]);
+        }
+        return list;
+    }
+
+    /**
+     * Return the distinct non-null ids, in the order they first appear.
+     */
+    private static int[] uniqueIds(Iterable<Integer> ids) {
+        IntHashSet seen = new IntHashSet();
+        int[] unique = new int[16];
+        int count = 0;
+        for (Integer id : ids) {
+            if (id != null && seen.add(id)) {
+                if (count == unique.length) {
+                    unique = Arrays.copyOf(unique, count * 2);
+                }
+                unique[count++] = id;
+            }
+        }
+        return Arrays.copyOf(unique, count);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Transactional
+    public void delete(int id) {
+        Session session = getCurrentSession();
+        T entity = (T) session.load(entityClass, id);
+        session.delete(entity);
+        adjustRowCount(-1);
+    }
+
+    /**
+     * A condition on an entity's properties, for {@link #updateWhere} and
+     * {@link #deleteWhere}.
+     */
+    public interface Condition<T> {
+        Predicate toPredicate(CriteriaBuilder builder, Root<T> root);
+    }
+
+    /**
+     * Return this exception (and HTTP response 409/CONFLICT) if the provided
+     * JSON patch was created against a previous version of the object -- an
+     * optimistic locking failure.
+     */
+    @ResponseStatus(value = HttpStatus.CONFLICT, reason = "Optimistic locking version out of date.")
+    public static class ConcurrentModificationPatchException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public ConcurrentModificationPatchException(Throwable e) {
+            super(e);
+        }
+    }
+
+    /**
+     * Return this exception (and HTTP response 400/BAD_REQUEST) if the provided
+     * JSON patch cannot be parsed.
+     */
+    @ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Cannot parse JSON patch.")
+    public static class MalformedPatchException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public MalformedPatchException(Throwable e) {
+            super(e);
+        }
+    }
+
+    /**
+     * Return this exception (and HTTP response 404/NOT_FOUND) if the patch is
+     * against an object that cannot be found.
+     */
+    @ResponseStatus(value = HttpStatus.NOT_FOUND, reason = "Cannot find object.")
+    public static class NotFoundPatchException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Return this exception (and HTTP response 422/UNPROCESSABLE_ENTITY) if the
+     * patch cannot be applied for any reason, even though the JSON Patch format
+     * is valid.
+     */
+    @ResponseStatus(value = HttpStatus.UNPROCESSABLE_ENTITY, reason = "Cannot process patch.")
+    public static class UnprocessablePatchException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public UnprocessablePatchException(Throwable e) {
+            super(e);
+        }
+    }
+
+    public EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    public void setEntityManager(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+}
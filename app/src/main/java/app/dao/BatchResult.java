@@ -0,0 +1,27 @@
+package app.dao;
+
+import java.util.List;
+
+/**
+ * The outcome of a multi-get: the entities that were found, in the order
+ * their ids were first requested, and the requested ids that do not exist.
+ */
+public class BatchResult<T> {
+
+    private final List<T> found;
+    private final int[] missing;
+
+    public BatchResult(List<T> found, int[] missing) {
+        this.found = found;
+        this.missing = missing;
+    }
+
+    public List<T> getFound() {
+        return found;
+    }
+
+    public int[] getMissing() {
+        return missing;
+    }
+
+} // class BatchResult
@@ -0,0 +1,12 @@
+package app.dao;
+
+import java.io.IOException;
+
+/**
+ * Receive entities one at a time while a DAO streams a result set.
+ */
+public interface EntityCallback<T> {
+
+    void accept(T entity) throws IOException;
+
+}
@@ -0,0 +1,51 @@
+package app.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of a keyset (seek) paginated listing, together with an opaque
+ * cursor that addresses the page after it. The cursor is null on the last
+ * page.
+ */
+public class KeysetPage<T> {
+
+    private static final String CURSOR_PREFIX = "id:";
+
+    private final List<T> items;
+    private final String next;
+
+    public KeysetPage(List<T> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public static String encodeCursor(int lastId) {
+        byte[] bytes = (CURSOR_PREFIX + lastId).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Return the last id addressed by a cursor from {@link #encodeCursor}.
+     *
+     * @throws IllegalArgumentException if the cursor was not produced by this
+     * class.
+     */
+    public static int decodeCursor(String cursor) {
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+        if (!decoded.startsWith(CURSOR_PREFIX)) {
+            throw new IllegalArgumentException("not a page cursor: " + cursor);
+        }
+        return Integer.parseInt(decoded.substring(CURSOR_PREFIX.length()));
+    }
+
+} // class KeysetPage
@@ -0,0 +1,235 @@
+package app.dao;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Send the connections of read-only transactions to a replica and all others
+ * to the primary.
+ *
+ * Connections are handed out lazily and fetched from the chosen database at
+ * the first statement, by which time the transaction's read-only flag is
+ * known. A replica that fails to hand out a connection is skipped for the
+ * retry interval; when no replica is available, reads go to the primary.
+ *
+ * With read-your-writes enabled, once a request has used the primary for a
+ * write, its later reads use the primary too, so that they see the write
+ * before it reaches the replicas.
+ */
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private static final String WROTE_ATTRIBUTE = ReadWriteRoutingDataSource.class.getName() + ".WROTE";
+    private static final Object PRIMARY_KEY = new Object();
+
+    /**
+     * How a replica is chosen for each read-only connection.
+     */
+    public enum Selection {
+        ROUND_ROBIN,
+        LEAST_CONNECTIONS
+    }
+
+    private final Log log = LogFactory.getLog(ReadWriteRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final Replica[] replicas;
+    private final Selection selection;
+    private final boolean readYourWrites;
+    private final long retryIntervalMs;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder primaryConnections;
+    private final LongAdder fallbacks;
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<Replica> replicas, Selection selection,
+            boolean readYourWrites, long retryIntervalMs, LongAdder primaryConnections, LongAdder fallbacks) {
+        this.primary = primary;
+        this.replicas = replicas.toArray(new Replica[replicas.size()]);
+        this.selection = selection;
+        this.readYourWrites = readYourWrites;
+        this.retryIntervalMs = retryIntervalMs;
+        this.primaryConnections = primaryConnections;
+        this.fallbacks = fallbacks;
+        setTargetDataSource(new Router());
+        afterPropertiesSet();
+    }
+
+    /**
+     * Serve the current transaction from the primary even if it is
+     * read-only, for reads that must not lag behind committed writes. Call
+     * before the transaction's first statement.
+     */
+    public static void readFromPrimary() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(PRIMARY_KEY)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(PRIMARY_KEY, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(PRIMARY_KEY);
+            }
+        });
+    }
+
+    /**
+     * Close the primary and every replica that holds resources.
+     */
+    @Override
+    public void close() throws IOException {
+        closeIfPossible(primary);
+        for (Replica replica : replicas) {
+            closeIfPossible(replica.dataSource);
+        }
+    }
+
+    private static void closeIfPossible(DataSource dataSource) throws IOException {
+        if (dataSource instanceof Closeable) {
+            ((Closeable) dataSource).close();
+        }
+    }
+
+    /**
+     * Open a connection as the given user, or with the data source's own
+     * credentials if {@code username} is null.
+     */
+    private static Connection connect(DataSource dataSource, String username, String password) throws SQLException {
+        return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+    }
+
+    private Connection getPrimaryConnection(String username, String password) throws SQLException {
+        primaryConnections.increment();
+        return connect(primary, username, password);
+    }
+
+    private Connection getReadConnection(String username, String password) throws SQLException {
+        long now = System.currentTimeMillis();
+        int start = selection == Selection.LEAST_CONNECTIONS
+                ? leastConnected(now)
+                : Math.floorMod(next.getAndIncrement(), replicas.length);
+        for (int i = 0; i < replicas.length; i++) {
+            Replica replica = replicas[(start + i) % replicas.length];
+            if (replica.downUntil > now) {
+                continue;
+            }
+            try {
+                Connection connection = connect(replica.dataSource, username, password);
+                replica.connections.increment();
+                return connection;
+            } catch (SQLException e) {
+                replica.downUntil = now + retryIntervalMs;
+                log.warn("Replica " + replica.name + " is unavailable; retrying in " + retryIntervalMs + " ms", e);
+            }
+        }
+        fallbacks.increment();
+        return getPrimaryConnection(username, password);
+    }
+
+    private int leastConnected(long now) {
+        int best = 0;
+        int bestActive = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.length; i++) {
+            Replica replica = replicas[i];
+            if (replica.downUntil <= now) {
+                int active = replica.activeConnections.getAsInt();
+                if (active < bestActive) {
+                    best = i;
+                    bestActive = active;
+                }
+            }
+        }
+        return best;
+    }
+
+    private boolean isRead() {
+        if (replicas.length == 0
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || TransactionSynchronizationManager.hasResource(PRIMARY_KEY)) {
+            return false;
+        }
+        if (readYourWrites) {
+            RequestAttributes request = RequestContextHolder.getRequestAttributes();
+            if (request != null && request.getAttribute(WROTE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rememberWrite() {
+        if (!readYourWrites || !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return;
+        }
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.setAttribute(WROTE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    /**
+     * The target of the lazy proxy, which picks a database per connection.
+     */
+    private class Router extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return getConnection(null, null);
+        }
+
+        /**
+         * Route like {@link #getConnection()}, passing the credentials on to
+         * the primary or replica chosen.
+         */
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            if (isRead()) {
+                return getReadConnection(username, password);
+            }
+            rememberWrite();
+            return getPrimaryConnection(username, password);
+        }
+    }
+
+    /**
+     * A replica database and the connection count used by least-connections
+     * selection.
+     */
+    public static class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final IntSupplier activeConnections;
+        private final LongAdder connections;
+        private volatile long downUntil;
+
+        public Replica(String name, DataSource dataSource, IntSupplier activeConnections, LongAdder connections) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.activeConnections = activeConnections;
+            this.connections = connections;
+        }
+
+        public boolean isUp() {
+            return downUntil <= System.currentTimeMillis();
+        }
+    }
+
+} // class ReadWriteRoutingDataSource
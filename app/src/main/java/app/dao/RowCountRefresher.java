@@ -0,0 +1,35 @@
+package app.dao;
+
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically reseed every DAO's row counter, so that rows written
+ * by other application instances or by hand are eventually counted.
+ */
+@Component
+public class RowCountRefresher {
+
+    private final Log log = LogFactory.getLog(RowCountRefresher.class);
+
+    @Autowired
+    private List<AbstractDao<?>> _daos;
+
+    @Scheduled(fixedDelayString = "${dao.count.resync-interval-ms}",
+            initialDelayString = "${dao.count.resync-interval-ms}")
+    public void refresh() {
+        for (AbstractDao<?> dao : _daos) {
+            try {
+                dao.refreshRowCount();
+            } catch (RuntimeException e) {
+                log.warn("Cannot refresh row count of " + dao.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+} // class RowCountRefresher
@@ -0,0 +1,103 @@
+package app.dao;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A row count kept in memory: a base read from the table, plus the changes
+ * committed through this counter since. Changes are never dropped, so one
+ * that commits while the table is being counted is not lost, and a reseed
+ * does not overwrite changes made while it ran.
+ *
+ * A count of the table is used only if no change was committing while it
+ * ran, so that the base neither misses nor double counts one. Writers
+ * report a change with {@link #committing} just before their transaction
+ * commits and {@link #completed} once it has committed or rolled back.
+ *
+ * Only changes made through this counter, in this JVM, are seen. Rows
+ * written by other instances or by hand are picked up at the next
+ * {@link #reseed}, and until then the count is off by that much.
+ */
+final class RowCounter {
+
+    private static final long UNKNOWN = -1;
+    private static final int SEED_ATTEMPTS = 5;
+
+    // Changes from all transactions that have committed, since startup.
+    private final AtomicLong committed = new AtomicLong();
+    // Transactions between committing() and completed().
+    private final AtomicInteger committing = new AtomicInteger();
+    private volatile long base = UNKNOWN;
+
+    /**
+     * Return the count, counting the table first if it has not been.
+     */
+    long get(LongSupplier countRows) {
+        if (base == UNKNOWN) {
+            synchronized (this) {
+                if (base == UNKNOWN) {
+                    seed(countRows, true);
+                }
+            }
+        }
+        return Math.max(0, base + committed.get());
+    }
+
+    /**
+     * Count the table again, correcting drift from writes this counter did
+     * not see. If changes kept committing on every attempt, the previous
+     * base is kept and false is returned.
+     */
+    synchronized boolean reseed(LongSupplier countRows) {
+        return seed(countRows, base == UNKNOWN);
+    }
+
+    private boolean seed(LongSupplier countRows, boolean force) {
+        long rows = 0;
+        long before = 0;
+        for (int attempt = 0; attempt < SEED_ATTEMPTS; attempt++) {
+            // A change that commits after this point is either still
+            // committing when the count ends or has moved committed.
+            boolean quiet = committing.get() == 0;
+            before = committed.get();
+            rows = countRows.getAsLong();
+            if (quiet && committing.get() == 0 && committed.get() == before) {
+                base = rows - before;
+                return true;
+            }
+        }
+        if (force) {
+            // Better a count that may be off by the changes that raced it
+            // than none; the next reseed corrects it.
+            base = rows - before;
+        }
+        return false;
+    }
+
+    /**
+     * Apply a change immediately, for writes made outside a transaction.
+     */
+    void add(long delta) {
+        committed.addAndGet(delta);
+    }
+
+    /**
+     * Report that a transaction carrying a change is about to commit.
+     */
+    void committing() {
+        committing.incrementAndGet();
+    }
+
+    /**
+     * Report that a transaction passed to {@link #committing} has completed,
+     * applying its change if it committed.
+     */
+    void completed(long delta, boolean committed) {
+        if (committed) {
+            this.committed.addAndGet(delta);
+        }
+        committing.decrementAndGet();
+    }
+
+} // class RowCounter
@@ -0,0 +1,27 @@
+package app.dao;
+
+import java.util.List;
+
+/**
+ * One page of ranked search results, together with the offset of the page
+ * after it. The offset is null on the last page.
+ */
+public class SearchPage<T> {
+
+    private final List<T> items;
+    private final Integer next;
+
+    public SearchPage(List<T> items, Integer next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public Integer getNext() {
+        return next;
+    }
+
+} // class SearchPage
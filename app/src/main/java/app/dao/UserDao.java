@@ -0,0 +1,317 @@
+package app.dao;
+
+import app.limits.Bulk;
+import app.models.User;
+import app.util.BloomFilter;
+import app.util.TextIndex;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import org.springframework.transaction.annotation.Transactional;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Repository
+@Transactional
+public class UserDao extends AbstractDao<User> {
+
+    @Autowired
+    private UserEmailFilter _emailFilter;
+
+    @Autowired
+    private UserSearchIndex _searchIndex;
+
+    public void save(User user) {
+        rememberEmail(user.getEmail());
+        super.create(user);
+        indexForSearch(Collections.singletonList(user));
+    }
+
+    @Bulk
+    public void saveAll(Collection<User> users) {
+        for (User user : users) {
+            rememberEmail(user.getEmail());
+        }
+        super.createAll(users);
+        indexForSearch(users);
+    }
+
+    /**
+     * Add an email to the filter now, so that it is never reported absent
+     * once the user is visible, and again after commit, so that a rebuild
+     * whose scan started before the commit still picks it up.
+     */
+    private void rememberEmail(final String email) {
+        _emailFilter.put(email);
+        afterCommit(() -> _emailFilter.put(email));
+    }
+
+    /**
+     * Index users for search once their transaction commits, with the values
+     * and version they have then.
+     */
+    private void indexForSearch(Collection<User> users) {
+        if (!_searchIndex.isEnabled()) {
+            return;
+        }
+        // The flush at commit gives updated entities their new version.
+        afterCommit(() -> {
+            for (User user : users) {
+                _searchIndex.put(user.getId(), user.getVersion(), user.getEmail(), user.getName());
+            }
+        });
+    }
+
+    private void removeFromSearch(Iterable<Integer> ids) {
+        if (!_searchIndex.isEnabled()) {
+            return;
+        }
+        afterCommit(() -> {
+            for (Integer id : ids) {
+                if (id != null) {
+                    _searchIndex.remove(id);
+                }
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Return one page of the users whose email or name contains the query,
+     * ignoring case, best match first. With {@code user.search.mode} set to
+     * {@code memory} the in-memory index ranks them; otherwise, or while the
+     * index is first being built, a LIKE query does.
+     */
+    @Transactional(readOnly = true)
+    public SearchPage<User> search(String query, int offset, int limit) {
+        int[] ids = _searchIndex.isEnabled() ? _searchIndex.search(query, offset, limit + 1) : null;
+        List<User> users;
+        boolean more;
+        if (ids != null) {
+            more = ids.length > limit;
+            List<Integer> page = new ArrayList<Integer>(Math.min(ids.length, limit));
+            for (int i = 0; i < ids.length && i < limit; i++) {
+                page.add(ids[i]);
+            }
+            // Users deleted since the index was updated are left out.
+            users = getBatch(page).getFound();
+        } else {
+            String normalized = TextIndex.normalize(query);
+            String escaped = normalized.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+            @SuppressWarnings("unchecked")
+            List<User> list = getCurrentSession().getNamedQuery(User.SEARCH)
+                    .setParameter("query", normalized)
+                    .setParameter("contains", "%" + escaped + "%")
+                    .setParameter("prefix", escaped + "%")
+                    .setParameter("wordPrefix", "% " + escaped + "%")
+                    .setFirstResult(offset)
+                    .setMaxResults(limit + 1)
+                    .list();
+            more = list.size() > limit;
+            users = more ? new ArrayList<User>(list.subList(0, limit)) : list;
+        }
+        return new SearchPage<User>(users, more ? offset + limit : null);
+    }
+
+    /**
+     * Refill the search index from the users table through a forward-only
+     * cursor, reading the primary.
+     *
+     * @return the number of users read.
+     */
+    @Bulk
+    @Transactional(readOnly = true)
+    public long rebuildSearchIndex() {
+        ReadWriteRoutingDataSource.readFromPrimary();
+        TextIndex index = _searchIndex.beginRebuild();
+        long count = 0;
+        boolean completed = false;
+        try {
+            ScrollableResults results = getCurrentSession()
+                    .getNamedQuery(User.SEARCH_FIELDS)
+                    .setFetchSize(getStreamFetchSize())
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            try {
+                while (results.next()) {
+                    Object[] row = results.get();
+                    _searchIndex.load(index, (Integer) row[0], (Integer) row[1], (String) row[2], (String) row[3]);
+                    count++;
+                }
+            } finally {
+                results.close();
+            }
+            completed = true;
+        } finally {
+            if (completed) {
+                _searchIndex.completeRebuild(index);
+            } else {
+                _searchIndex.abortRebuild(index);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Refill the email filter from the users table, reading emails through a
+     * forward-only cursor. The primary is read, since a lagging replica would
+     * leave out recently created emails.
+     *
+     * @return the number of emails added.
+     */
+    @Bulk
+    @Transactional(readOnly = true)
+    public long rebuildEmailFilter() {
+        ReadWriteRoutingDataSource.readFromPrimary();
+        BloomFilter filter = _emailFilter.beginRebuild();
+        long count = 0;
+        boolean completed = false;
+        try {
+            ScrollableResults results = getCurrentSession()
+                    .getNamedQuery(User.EMAILS)
+                    .setFetchSize(getStreamFetchSize())
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            try {
+                while (results.next()) {
+                    String email = (String) results.get(0);
+                    if (email != null) {
+                        filter.put(email);
+                        count++;
+                    }
+                }
+            } finally {
+                results.close();
+            }
+            completed = true;
+        } finally {
+            if (completed) {
+                _emailFilter.completeRebuild(filter);
+            } else {
+                _emailFilter.abortRebuild(filter);
+            }
+        }
+        return count;
+    }
+
+    public void delete(User user) {
+        delete(user.getId());
+    }
+
+    @Override
+    public void delete(int id) {
+        super.delete(id);
+        removeFromSearch(Collections.singletonList(id));
+    }
+
+    @Override
+    public int deleteAll(Iterable<Integer> ids) {
+        int deleted = super.deleteAll(ids);
+        removeFromSearch(ids);
+        return deleted;
+    }
+
+    @Override
+    public int deleteWhere(Condition<User> condition) {
+        List<Integer> ids = Collections.emptyList();
+        if (_searchIndex.isEnabled()) {
+            ids = new ArrayList<Integer>();
+            for (Object[] row : selectWhere(condition, "id", "email", "name")) {
+                ids.add((Integer) row[0]);
+            }
+        }
+        int deleted = super.deleteWhere(condition);
+        removeFromSearch(ids);
+        return deleted;
+    }
+
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public List<User> getAll() {
+        return getCurrentSession().getNamedQuery(User.ALL).list();
+    }
+
+    /**
+     * Return the user with this email, or null. The email is resolved to an
+     * id through the natural-id cache, and the user is then read like any
+     * other by id, so a repeated lookup runs no SQL.
+     */
+    @Transactional(readOnly = true)
+    public User getByEmail(String email) {
+        return getCurrentSession().bySimpleNaturalId(User.class).load(email);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean existsByEmail(String email) {
+        return getCurrentSession().getNamedQuery(User.ID_BY_EMAIL)
+                .setParameter("email", email)
+                .setMaxResults(1)
+                .uniqueResult() != null;
+    }
+
+    @Transactional(readOnly = true)
+    public User getById(int id) {
+        return super.get(id);
+    }
+
+    public void update(User user) {
+        rememberEmail(user.getEmail());
+        super.update(user);
+        indexForSearch(Collections.singletonList(user));
+    }
+
+    @Override
+    public int updateWhere(Map<String, ?> values, Condition<User> condition) {
+        Object email = values.get("email");
+        if (email instanceof String) {
+            rememberEmail((String) email);
+        }
+        // The statement does not return the rows it changes, so read them
+        // first to reindex them with their new values.
+        List<User> changed = new ArrayList<User>();
+        if (_searchIndex.isEnabled()) {
+            for (Object[] row : selectWhere(condition, "id", "version", "email", "name")) {
+                User user = new User((Integer) row[0]);
+                // The statement increments the version.
+                user.setVersion((Integer) row[1] + 1);
+                user.setEmail(values.containsKey("email") ? (String) values.get("email") : (String) row[2]);
+                user.setName(values.containsKey("name") ? (String) values.get("name") : (String) row[3]);
+                changed.add(user);
+            }
+        }
+        int updated = super.updateWhere(values, condition);
+        indexForSearch(changed);
+        return updated;
+    }
+
+    @Override
+    public User patch(int id, Integer expectedVersion, UnaryOperator<User> patcher) {
+        User user = super.patch(id, expectedVersion, patcher);
+        rememberEmail(user.getEmail());
+        indexForSearch(Collections.singletonList(user));
+        return user;
+    }
+
+} // class UserDao
@@ -0,0 +1,111 @@
+package app.dao;
+
+import app.metrics.MetricsRegistry;
+import app.util.BloomFilter;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * An in-memory Bloom filter over all user emails, used to answer "no such
+ * user" without a database query. Until the first build completes, every
+ * email is reported as possibly present.
+ *
+ * A rebuild fills a fresh filter while the current one keeps serving. Emails
+ * added while it runs go into both, so the swap does not lose them.
+ */
+@Component
+public class UserEmailFilter {
+
+    @Value("${user.email-filter.expected-insertions}")
+    private long expectedInsertions;
+
+    @Value("${user.email-filter.false-positive-rate}")
+    private double falsePositiveRate;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    private final Object lock = new Object();
+    private volatile BloomFilter current;
+    private BloomFilter pending;
+    private LongAdder negatives;
+
+    @PostConstruct
+    public void registerMetrics() {
+        negatives = metricsRegistry.counter("user.email_filter.negatives");
+        metricsRegistry.gauge("user.email_filter.fpp.configured", () -> falsePositiveRate);
+        metricsRegistry.gauge("user.email_filter.fpp.estimated", () -> {
+            BloomFilter filter = current;
+            return filter == null ? 1.0 : filter.getEstimatedFalsePositiveRate();
+        });
+        metricsRegistry.gauge("user.email_filter.insertions", () -> {
+            BloomFilter filter = current;
+            return filter == null ? 0 : filter.getInsertions();
+        });
+    }
+
+    /**
+     * Return false only if no user has this email.
+     */
+    public boolean mightContain(String email) {
+        BloomFilter filter = current;
+        if (filter == null || email == null || filter.mightContain(email)) {
+            return true;
+        }
+        negatives.increment();
+        return false;
+    }
+
+    public void put(String email) {
+        if (email == null) {
+            return;
+        }
+        synchronized (lock) {
+            if (current != null) {
+                current.put(email);
+            }
+            if (pending != null) {
+                pending.put(email);
+            }
+        }
+    }
+
+    /**
+     * Start a rebuild and return the empty filter to fill. It is sized for
+     * twice the previous population, or the configured expectation if that
+     * is larger.
+     */
+    BloomFilter beginRebuild() {
+        synchronized (lock) {
+            long expected = expectedInsertions;
+            if (current != null) {
+                expected = Math.max(expected, current.getInsertions() * 2);
+            }
+            pending = new BloomFilter(expected, falsePositiveRate);
+            return pending;
+        }
+    }
+
+    void completeRebuild(BloomFilter filter) {
+        synchronized (lock) {
+            if (pending == filter) {
+                current = filter;
+                pending = null;
+            }
+        }
+    }
+
+    void abortRebuild(BloomFilter filter) {
+        synchronized (lock) {
+            if (pending == filter) {
+                pending = null;
+            }
+        }
+    }
+
+} // class UserEmailFilter
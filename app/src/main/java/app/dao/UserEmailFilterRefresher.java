@@ -0,0 +1,31 @@
+package app.dao;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Build the user email filter at startup and rebuild it periodically, which
+ * sheds the emails of deleted users.
+ */
+@Component
+public class UserEmailFilterRefresher {
+
+    private final Log log = LogFactory.getLog(UserEmailFilterRefresher.class);
+
+    @Autowired
+    private UserDao _userDao;
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${user.email-filter.rebuild-interval-ms}")
+    public void refresh() {
+        try {
+            long count = _userDao.rebuildEmailFilter();
+            log.info("Rebuilt user email filter with " + count + " emails");
+        } catch (RuntimeException e) {
+            log.warn("Cannot rebuild user email filter", e);
+        }
+    }
+
+} // class UserEmailFilterRefresher
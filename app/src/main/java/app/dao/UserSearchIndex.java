@@ -0,0 +1,170 @@
+package app.dao;
+
+import app.metrics.MetricsRegistry;
+import app.util.TextIndex;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * An in-memory search index over user emails and names, used when
+ * {@code user.search.mode} is {@code memory}. Users are indexed as their
+ * transactions commit. Until the first build completes, searches are not
+ * answered here.
+ *
+ * Each user is indexed with its entity version, and a change carrying an
+ * older version than the one indexed is ignored, so that transactions whose
+ * commits are reported out of order cannot leave an older email or name in
+ * place. Ids are never reused, so a removed user is remembered as removed
+ * and a late change to it is ignored as well.
+ *
+ * A rebuild fills a fresh index while the current one keeps serving. Users
+ * changed while it runs are changed in both, and the rebuild does not
+ * overwrite them with the older rows it may still read.
+ */
+@Component
+public class UserSearchIndex {
+
+    private static final String MEMORY_MODE = "memory";
+    // The version recorded for a removed user, newer than any change to it.
+    private static final int REMOVED = Integer.MAX_VALUE;
+
+    @Value("${user.search.mode}")
+    private String mode;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    private final Object lock = new Object();
+    private volatile TextIndex current;
+    private TextIndex pending;
+    // The version of each user in current and pending, guarded by lock.
+    private Map<Integer, Integer> currentVersions = new HashMap<Integer, Integer>();
+    private Map<Integer, Integer> pendingVersions;
+
+    @PostConstruct
+    public void registerMetrics() {
+        metricsRegistry.gauge("user.search.documents", () -> {
+            TextIndex index = current;
+            return index == null ? 0 : index.size();
+        });
+        metricsRegistry.gauge("user.search.terms", () -> {
+            TextIndex index = current;
+            return index == null ? 0 : index.getTermCount();
+        });
+        metricsRegistry.gauge("user.search.trigrams", () -> {
+            TextIndex index = current;
+            return index == null ? 0 : index.getTrigramCount();
+        });
+    }
+
+    public boolean isEnabled() {
+        return MEMORY_MODE.equals(mode);
+    }
+
+    /**
+     * Return the ids of matching users, ranked as by
+     * {@link TextIndex#search}, or null if the index is not built.
+     */
+    public int[] search(String query, int offset, int limit) {
+        TextIndex index = current;
+        return index == null ? null : index.search(query, offset, limit);
+    }
+
+    /**
+     * Index a committed change to a user, unless a newer version of it is
+     * already indexed.
+     */
+    public void put(int id, int version, String email, String name) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (lock) {
+            if (current != null && isNewer(currentVersions, id, version)) {
+                current.put(id, email, name);
+            }
+            if (pending != null && isNewer(pendingVersions, id, version)) {
+                pending.put(id, email, name);
+            }
+        }
+    }
+
+    public void remove(int id) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (lock) {
+            if (current != null) {
+                current.remove(id);
+                currentVersions.put(id, REMOVED);
+            }
+            if (pending != null) {
+                pending.remove(id);
+                pendingVersions.put(id, REMOVED);
+            }
+        }
+    }
+
+    /**
+     * Record the version of a user unless the one recorded is newer, and
+     * return whether it was recorded.
+     */
+    private static boolean isNewer(Map<Integer, Integer> versions, int id, int version) {
+        Integer indexed = versions.get(id);
+        if (indexed != null && indexed > version) {
+            return false;
+        }
+        versions.put(id, version);
+        return true;
+    }
+
+    /**
+     * Start a rebuild and return the empty index to fill through
+     * {@link #load}.
+     */
+    TextIndex beginRebuild() {
+        synchronized (lock) {
+            pending = new TextIndex();
+            pendingVersions = new HashMap<Integer, Integer>();
+            return pending;
+        }
+    }
+
+    /**
+     * Add a user read by the rebuild, unless a newer version of it has been
+     * indexed since the rebuild began.
+     */
+    void load(TextIndex index, int id, int version, String email, String name) {
+        synchronized (lock) {
+            if (pending == index && isNewer(pendingVersions, id, version)) {
+                index.put(id, email, name);
+            }
+        }
+    }
+
+    void completeRebuild(TextIndex index) {
+        synchronized (lock) {
+            if (pending == index) {
+                current = index;
+                currentVersions = pendingVersions;
+                pending = null;
+                pendingVersions = null;
+            }
+        }
+    }
+
+    void abortRebuild(TextIndex index) {
+        synchronized (lock) {
+            if (pending == index) {
+                pending = null;
+                pendingVersions = null;
+            }
+        }
+    }
+
+} // class UserSearchIndex
@@ -0,0 +1,37 @@
+package app.dao;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Build the user search index at startup and rebuild it periodically, which
+ * repairs any drift from changes made outside this application.
+ */
+@Component
+public class UserSearchIndexRefresher {
+
+    private final Log log = LogFactory.getLog(UserSearchIndexRefresher.class);
+
+    @Autowired
+    private UserDao _userDao;
+
+    @Autowired
+    private UserSearchIndex _searchIndex;
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${user.search.rebuild-interval-ms}")
+    public void refresh() {
+        if (!_searchIndex.isEnabled()) {
+            return;
+        }
+        try {
+            long count = _userDao.rebuildSearchIndex();
+            log.info("Rebuilt user search index with " + count + " users");
+        } catch (RuntimeException e) {
+            log.warn("Cannot rebuild user search index", e);
+        }
+    }
+
+} // class UserSearchIndexRefresher
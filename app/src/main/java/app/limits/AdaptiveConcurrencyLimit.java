@@ -0,0 +1,139 @@
+package app.limits;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A limit on concurrent calls that follows their latency, in the manner of
+ * the gradient algorithms for TCP congestion control. Completed calls report
+ * how long they took. While recent calls are about as fast as calls have
+ * been over the longer term, the limit grows by about its square root;
+ * once they are slower by more than a tolerance, it shrinks in proportion.
+ * So when the database slows down, fewer calls are let in and the rest are
+ * turned away at once, instead of queueing for connections and slowing
+ * everyone down.
+ *
+ * Callers may be held to a share of the limit, so that as it falls, the
+ * calls with the smallest share are turned away first.
+ */
+public final class AdaptiveConcurrencyLimit {
+
+    // How much slower than the long-term average recent calls may be before
+    // the limit shrinks.
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double SHRINK_ON_OVERLOAD = 0.9;
+    private static final int SHORT_WINDOW = 10;
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile double limit;
+    private double shortLatency;
+    private double longLatency;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Admit a call if fewer than {@code share} of the limit are in flight.
+     *
+     * @return the number of calls in flight including this one, or -1 if the
+     *         call is not admitted.
+     */
+    public int tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Admit a call regardless of the limit.
+     *
+     * @return the number of calls in flight including this one.
+     */
+    public int acquire() {
+        return inFlight.incrementAndGet();
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Adjust the limit for a call that took {@code latencyNanos} and started
+     * with {@code inFlight} calls in flight. Samples that arrive while
+     * another is being taken are dropped rather than waited for.
+     */
+    public void sample(long latencyNanos, int inFlight) {
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            if (longLatency == 0) {
+                shortLatency = latencyNanos;
+                longLatency = latencyNanos;
+                return;
+            }
+            shortLatency += (latencyNanos - shortLatency) / SHORT_WINDOW;
+            longLatency += (latencyNanos - longLatency) / LONG_WINDOW;
+            // After a slow spell the long-term average lags behind; let it
+            // come down faster once calls are quick again.
+            if (longLatency > 2 * shortLatency) {
+                longLatency *= 0.95;
+            }
+            // With most of the limit unused, latency says nothing about
+            // what more concurrency would do.
+            double current = limit;
+            if (inFlight < current / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longLatency / shortLatency));
+            double target = current * gradient + Math.sqrt(current);
+            limit = clamp(current * (1 - SMOOTHING) + target * SMOOTHING);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Shrink the limit after a call failed for lack of capacity, such as a
+     * connection that could not be had in time.
+     */
+    public void overloaded() {
+        lock.lock();
+        try {
+            limit = clamp(limit * SHRINK_ON_OVERLOAD);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+} // class AdaptiveConcurrencyLimit
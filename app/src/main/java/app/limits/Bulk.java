@@ -0,0 +1,17 @@
+package app.limits;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mark a DAO method that reads or changes many rows in one call. Such calls
+ * are admitted only while fewer than {@code dao.concurrency.bulk-share} of
+ * the concurrency limit are in flight, so they are turned away before
+ * single-row calls are. Overriding methods are bulk as well.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulk {
+}
@@ -0,0 +1,133 @@
+package app.limits;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admit requests from each client at a steady rate, with bursts up to a
+ * fixed size: a token bucket per client, kept as the generic cell rate
+ * algorithm does. Each bucket is a single timestamp, the time at which it
+ * would be full again, so admitting a request is a comparison and an
+ * addition.
+ *
+ * Buckets are spread over striped, access-ordered maps, each guarded by its
+ * own lock. A bucket that has refilled holds nothing a new one would not, so
+ * the least recently used buckets are dropped once refilled, whenever a new
+ * client is added. A stripe that is still full then drops its least
+ * recently used bucket regardless, so memory stays bounded and a client
+ * dropped that way simply starts over with a full bucket.
+ */
+public final class ClientRateLimiter {
+
+    private static final int STRIPES = 64;
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxClientsPerStripe;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param perSecond the sustained rate each client is admitted at.
+     * @param burst the most requests a client that has been idle may make
+     *            at once.
+     * @param maxClients about the most clients tracked at once.
+     */
+    public ClientRateLimiter(double perSecond, int burst, int maxClients) {
+        if (perSecond <= 0 || burst < 1 || maxClients < 1) {
+            throw new IllegalArgumentException("rate, burst and client limit must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (1e9 / perSecond));
+        this.burstNanos = (burst - 1) * intervalNanos;
+        this.maxClientsPerStripe = Math.max(1, maxClients / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Admit one request from a client at {@code now}, as given by
+     * {@link System#nanoTime}.
+     *
+     * @return 0 if the request is admitted, or else how many nanoseconds
+     *         until the client's next request would be.
+     */
+    public long acquire(String client, long now) {
+        int hash = client.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        synchronized (stripe) {
+            Bucket bucket = stripe.get(client);
+            if (bucket == null) {
+                stripe.evictRefilled(now);
+                bucket = new Bucket(now);
+                stripe.put(client, bucket);
+                if (stripe.size() > maxClientsPerStripe) {
+                    stripe.evictEldest(now);
+                }
+            }
+            long full = bucket.full - now > 0 ? bucket.full : now;
+            long wait = full - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            bucket.full = full + intervalNanos;
+            return 0;
+        }
+    }
+
+    /**
+     * Return the number of clients tracked.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Return the number of buckets dropped before they had refilled.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private static final class Bucket {
+
+        // When the bucket is full again; not before now, it is full.
+        long full;
+
+        Bucket(long full) {
+            this.full = full;
+        }
+    }
+
+    private final class Stripe extends LinkedHashMap<String, Bucket> {
+
+        private static final long serialVersionUID = 1L;
+
+        Stripe() {
+            super(16, 0.75f, true);
+        }
+
+        void evictRefilled(long now) {
+            Iterator<Bucket> buckets = values().iterator();
+            while (buckets.hasNext() && buckets.next().full - now <= 0) {
+                buckets.remove();
+            }
+        }
+
+        void evictEldest(long now) {
+            Iterator<Bucket> buckets = values().iterator();
+            if (buckets.next().full - now > 0) {
+                evictions.increment();
+            }
+            buckets.remove();
+        }
+    }
+
+} // class ClientRateLimiter
@@ -0,0 +1,171 @@
+package app.limits;
+
+import app.ServiceUnavailableException;
+import app.metrics.MetricsRegistry;
+
+import java.lang.reflect.Method;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.tomcat.jdbc.pool.PoolExhaustedException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+/**
+ * Hold the public DAO methods to an {@link AdaptiveConcurrencyLimit}. A call
+ * over the limit throws {@link ServiceUnavailableException}, answered with
+ * 503, rather than waiting for a connection. {@link Bulk} calls may only use
+ * {@code dao.concurrency.bulk-share} of the limit, and, since they take as
+ * long as the rows they touch, their latency does not move it. A call that
+ * cannot get a connection or times out shrinks it, see {@link #isOverload}.
+ *
+ * With {@code dao.concurrency.mode} set to {@code enforce}, calls over the
+ * limit are turned away; with {@code observe} they are only counted, and
+ * {@code off} tracks nothing. The limit, the calls in flight and the calls
+ * turned away are published as {@code dao.concurrency.limit},
+ * {@code dao.concurrency.in_flight} and
+ * {@code dao.concurrency.rejected{priority="normal|bulk"}}.
+ *
+ * The aspect runs inside the metrics aspect, so calls turned away are
+ * counted in {@code dao.errors}, and outside the transaction advice, so they
+ * never take a connection. A DAO call made from within another is not
+ * limited again.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class DaoConcurrencyLimitAspect {
+
+    private static final String ENFORCE_MODE = "enforce";
+    private static final String OBSERVE_MODE = "observe";
+    private static final ThreadLocal<Boolean> IN_CALL = new ThreadLocal<>();
+
+    @Value("${dao.concurrency.mode}")
+    private String mode;
+
+    @Value("${dao.concurrency.initial-limit}")
+    private int initialLimit;
+
+    @Value("${dao.concurrency.min-limit}")
+    private int minLimit;
+
+    @Value("${dao.concurrency.max-limit}")
+    private int maxLimit;
+
+    @Value("${dao.concurrency.bulk-share}")
+    private double bulkShare;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    private boolean enabled;
+    private boolean enforced;
+    private AdaptiveConcurrencyLimit limit;
+    private LongAdder normalRejections;
+    private LongAdder bulkRejections;
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Method, Boolean>> bulkMethods = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        enforced = ENFORCE_MODE.equals(mode);
+        enabled = enforced || OBSERVE_MODE.equals(mode);
+        if (!enabled) {
+            return;
+        }
+        limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit);
+        normalRejections = metricsRegistry.counter("dao.concurrency.rejected{priority=\"normal\"}");
+        bulkRejections = metricsRegistry.counter("dao.concurrency.rejected{priority=\"bulk\"}");
+        metricsRegistry.gauge("dao.concurrency.limit", limit::getLimit);
+        metricsRegistry.gauge("dao.concurrency.in_flight", limit::getInFlight);
+    }
+
+    @Around("execution(public * app.dao.AbstractDao+.*(..))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!enabled || IN_CALL.get() != null) {
+            return joinPoint.proceed();
+        }
+        boolean bulk = isBulk(joinPoint);
+        int inFlight = limit.tryAcquire(bulk ? bulkShare : 1.0);
+        if (inFlight < 0) {
+            (bulk ? bulkRejections : normalRejections).increment();
+            if (enforced) {
+                throw new ServiceUnavailableException("too many database calls in flight");
+            }
+            inFlight = limit.acquire();
+        }
+        IN_CALL.set(Boolean.TRUE);
+        long start = System.nanoTime();
+        boolean overloaded = false;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            overloaded = isOverload(e);
+            throw e;
+        } finally {
+            IN_CALL.remove();
+            limit.release();
+            if (overloaded) {
+                limit.overloaded();
+            } else if (!bulk) {
+                limit.sample(System.nanoTime() - start, inFlight);
+            }
+        }
+    }
+
+    /**
+     * Return whether a call failed for lack of capacity: no connection could
+     * be had in time, the database could not be reached, or a statement
+     * timed out. With replicas configured, connections are taken at the
+     * first statement rather than when the transaction begins, so a pool
+     * timeout arrives as whatever the ORM translates it to; the causes are
+     * searched for it too.
+     */
+    static boolean isOverload(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof CannotCreateTransactionException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof QueryTimeoutException
+                    || cause instanceof PoolExhaustedException
+                    || cause instanceof SQLTimeoutException
+                    || cause instanceof SQLTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isBulk(ProceedingJoinPoint joinPoint) {
+        // Methods inherited from AbstractDao may be overridden differently
+        // by each DAO, so they are looked up by DAO class as well.
+        Class<?> dao = joinPoint.getTarget().getClass();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        ConcurrentMap<Method, Boolean> daoMethods = bulkMethods.get(dao);
+        if (daoMethods == null) {
+            daoMethods = bulkMethods.computeIfAbsent(dao, d -> new ConcurrentHashMap<>());
+        }
+        Boolean bulk = daoMethods.get(method);
+        if (bulk == null) {
+            bulk = daoMethods.computeIfAbsent(method, m -> AnnotatedElementUtils.findMergedAnnotation(
+                    AopUtils.getMostSpecificMethod(m, dao), Bulk.class) != null);
+        }
+        return bulk;
+    }
+
+} // class DaoConcurrencyLimitAspect
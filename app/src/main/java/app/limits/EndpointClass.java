@@ -0,0 +1,30 @@
+package app.limits;
+
+import java.util.Locale;
+
+/**
+ * The classes of endpoint that clients are rate limited by separately, each
+ * at the rate configured under {@code rate-limit.<class>.*}.
+ */
+public enum EndpointClass {
+
+    /** Reads of a bounded number of users; any GET or HEAD by default. */
+    READ,
+
+    /** Changes to a single user; any other method by default. */
+    WRITE,
+
+    /** Reads of the whole table. */
+    SCAN,
+
+    /** Reads or changes of many users in one request. */
+    BULK;
+
+    /**
+     * Return the name used in configuration keys and metric labels.
+     */
+    public String getKey() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+} // enum EndpointClass
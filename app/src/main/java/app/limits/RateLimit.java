@@ -0,0 +1,19 @@
+package app.limits;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Rate limit a controller method as the given class of endpoint, rather than
+ * as {@link EndpointClass#READ} or {@link EndpointClass#WRITE} by its HTTP
+ * method.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimit {
+
+    EndpointClass value();
+
+}
@@ -0,0 +1,164 @@
+package app.limits;
+
+import app.metrics.MetricsRegistry;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Rate limit each client, as identified by the address the request came
+ * from, separately for each {@link EndpointClass}. A controller method is a
+ * {@code read} if it is mapped to GET or HEAD only, and a {@code write}
+ * otherwise, unless it says otherwise with {@link RateLimit}.
+ *
+ * With {@code rate-limit.mode} set to {@code enforce}, a request over its
+ * client's rate is answered with 429 and a Retry-After header. With
+ * {@code observe} it is let through, and only counted. {@code off} tracks
+ * nothing. Requests over the rate are counted in
+ * {@code rate_limit.rejected{class="..."}}.
+ *
+ * X-Forwarded-For is not read here: clients can send any value in it, and
+ * would get a fresh bucket on every request. Behind a reverse proxy, set
+ * {@code server.use-forward-headers} and {@code server.tomcat.internal-proxies},
+ * and Tomcat reports the rightmost address that is not a trusted proxy as the
+ * remote address.
+ */
+@Component
+public class RateLimitInterceptor extends HandlerInterceptorAdapter {
+
+    private static final String ENFORCE_MODE = "enforce";
+    private static final String OBSERVE_MODE = "observe";
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Value("${rate-limit.mode}")
+    private String mode;
+
+    @Value("${rate-limit.max-clients}")
+    private int maxClients;
+
+    @Value("${rate-limit.read.per-second}")
+    private double readPerSecond;
+
+    @Value("${rate-limit.read.burst}")
+    private int readBurst;
+
+    @Value("${rate-limit.write.per-second}")
+    private double writePerSecond;
+
+    @Value("${rate-limit.write.burst}")
+    private int writeBurst;
+
+    @Value("${rate-limit.scan.per-second}")
+    private double scanPerSecond;
+
+    @Value("${rate-limit.scan.burst}")
+    private int scanBurst;
+
+    @Value("${rate-limit.bulk.per-second}")
+    private double bulkPerSecond;
+
+    @Value("${rate-limit.bulk.burst}")
+    private int bulkBurst;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    private boolean enabled;
+    private boolean enforced;
+    private final ClientRateLimiter[] limiters = new ClientRateLimiter[EndpointClass.values().length];
+    private final LongAdder[] rejections = new LongAdder[EndpointClass.values().length];
+    private final ConcurrentMap<Method, EndpointClass> endpointClasses = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        enforced = ENFORCE_MODE.equals(mode);
+        enabled = enforced || OBSERVE_MODE.equals(mode);
+        if (!enabled) {
+            return;
+        }
+        register(EndpointClass.READ, readPerSecond, readBurst);
+        register(EndpointClass.WRITE, writePerSecond, writeBurst);
+        register(EndpointClass.SCAN, scanPerSecond, scanBurst);
+        register(EndpointClass.BULK, bulkPerSecond, bulkBurst);
+    }
+
+    private void register(EndpointClass endpointClass, double perSecond, int burst) {
+        ClientRateLimiter limiter = new ClientRateLimiter(perSecond, burst, maxClients);
+        String tag = "{class=\"" + endpointClass.getKey() + "\"}";
+        limiters[endpointClass.ordinal()] = limiter;
+        rejections[endpointClass.ordinal()] = metricsRegistry.counter("rate_limit.rejected" + tag);
+        metricsRegistry.gauge("rate_limit.clients" + tag, limiter::size);
+        metricsRegistry.gauge("rate_limit.evictions" + tag, limiter::getEvictions);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        // Error pages and the async dispatches of streamed responses belong
+        // to a request that was already admitted.
+        if (!enabled || !(handler instanceof HandlerMethod)
+                || request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        EndpointClass endpointClass = endpointClass(((HandlerMethod) handler).getMethod());
+        long wait = limiters[endpointClass.ordinal()].acquire(request.getRemoteAddr(), System.nanoTime());
+        if (wait == 0) {
+            return true;
+        }
+        rejections[endpointClass.ordinal()].increment();
+        if (!enforced) {
+            return true;
+        }
+        // Whole seconds, rounded up.
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((wait + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "too many requests");
+        return false;
+    }
+
+    private EndpointClass endpointClass(Method method) {
+        EndpointClass endpointClass = endpointClasses.get(method);
+        if (endpointClass == null) {
+            RateLimit rateLimit = method.getAnnotation(RateLimit.class);
+            if (rateLimit != null) {
+                endpointClass = rateLimit.value();
+            } else {
+                endpointClass = isRead(method) ? EndpointClass.READ : EndpointClass.WRITE;
+            }
+            endpointClasses.put(method, endpointClass);
+        }
+        return endpointClass;
+    }
+
+    private static boolean isRead(Method method) {
+        RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+        if (mapping == null) {
+            return true;
+        }
+        for (RequestMethod requestMethod : mapping.method()) {
+            if (requestMethod != RequestMethod.GET && requestMethod != RequestMethod.HEAD) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+} // class RateLimitInterceptor
@@ -0,0 +1,33 @@
+package app.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.tomcat.jdbc.pool.interceptor.StatementCache;
+
+/**
+ * Tomcat's pool interceptor that keeps prepared statements open per
+ * connection and hands them out again for the same SQL, counting how often
+ * a statement is found in the cache.
+ *
+ * The pool creates its interceptors itself, so the counters are handed over
+ * statically, before the pool is created.
+ */
+public class CountingStatementCache extends StatementCache {
+
+    private static volatile LongAdder hits = new LongAdder();
+    private static volatile LongAdder misses = new LongAdder();
+
+    public static void setCounters(LongAdder hitCounter, LongAdder missCounter) {
+        hits = hitCounter;
+        misses = missCounter;
+    }
+
+    @Override
+    public CachedStatement isCached(Method method, Object[] args) {
+        CachedStatement cached = super.isCached(method, args);
+        (cached != null ? hits : misses).increment();
+        return cached;
+    }
+
+} // class CountingStatementCache
@@ -0,0 +1,85 @@
+package app.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Record the latency of every public DAO method in a histogram named
+ * {@code dao.calls{dao="UserDao",method="get(int)"}}, and count the calls
+ * that throw under {@code dao.errors}.
+ *
+ * The aspect runs outside the transaction advice, so the time includes
+ * beginning and committing the transaction.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DaoMetricsAspect {
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Method, DaoMethodMetrics>> metrics = new ConcurrentHashMap<>();
+
+    @Around("execution(public * app.dao.AbstractDao+.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        DaoMethodMetrics methodMetrics = metrics(joinPoint);
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            methodMetrics.errors.increment();
+            throw e;
+        } finally {
+            methodMetrics.latency.recordSince(start);
+        }
+    }
+
+    private DaoMethodMetrics metrics(ProceedingJoinPoint joinPoint) {
+        // Methods inherited from AbstractDao are shared by every DAO, so the
+        // metrics are keyed by DAO class as well.
+        Class<?> dao = joinPoint.getTarget().getClass();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        ConcurrentMap<Method, DaoMethodMetrics> daoMetrics = metrics.get(dao);
+        if (daoMetrics == null) {
+            daoMetrics = metrics.computeIfAbsent(dao, d -> new ConcurrentHashMap<>());
+        }
+        DaoMethodMetrics methodMetrics = daoMetrics.get(method);
+        if (methodMetrics == null) {
+            methodMetrics = daoMetrics.computeIfAbsent(method, m -> new DaoMethodMetrics(dao.getSimpleName(), m));
+        }
+        return methodMetrics;
+    }
+
+    private class DaoMethodMetrics {
+
+        private final LatencyHistogram latency;
+        private final LongAdder errors;
+
+        DaoMethodMetrics(String dao, Method method) {
+            StringBuilder signature = new StringBuilder(method.getName()).append('(');
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (i > 0) {
+                    signature.append(',');
+                }
+                signature.append(parameterTypes[i].getSimpleName());
+            }
+            String labels = "{dao=\"" + dao + "\",method=\"" + signature.append(')') + "\"}";
+            latency = metricsRegistry.histogram("dao.calls" + labels);
+            errors = metricsRegistry.counter("dao.errors" + labels);
+        }
+    }
+
+} // class DaoMetricsAspect
@@ -0,0 +1,72 @@
+package app.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Record the latency of every controller method in a histogram named
+ * {@code http.server.requests{endpoint="Controller.method",status="2xx"}}.
+ *
+ * The clock starts when the handler is chosen and stops when the request
+ * completes, so a streamed response is timed until its last byte. Histograms
+ * are looked up once per endpoint and status class and then reused.
+ */
+@Component
+public class EndpointMetricsInterceptor extends HandlerInterceptorAdapter {
+
+    private static final String START_ATTRIBUTE = EndpointMetricsInterceptor.class.getName() + ".START";
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    private final ConcurrentMap<Method, LatencyHistogram[]> histograms = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // An async dispatch passes through here again; keep the first start.
+        if (handler instanceof HandlerMethod && request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start == null) {
+            return;
+        }
+        // An exception that reaches here has not been mapped to a status, and
+        // will become a server error.
+        int statusClass = ex != null ? 5 : Math.min(Math.max(response.getStatus() / 100, 1), 5);
+        histogram(((HandlerMethod) handler).getMethod(), statusClass).recordSince((Long) start);
+    }
+
+    private LatencyHistogram histogram(Method method, int statusClass) {
+        LatencyHistogram[] byStatus = histograms.get(method);
+        if (byStatus == null) {
+            byStatus = histograms.computeIfAbsent(method, m -> new LatencyHistogram[5]);
+        }
+        // Filled on first use, so that only statuses an endpoint returns are
+        // published. Racing threads get the same histogram from the registry.
+        LatencyHistogram histogram = byStatus[statusClass - 1];
+        if (histogram == null) {
+            String endpoint = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+            histogram = metricsRegistry.histogram("http.server.requests{endpoint=\"" + endpoint
+                    + "\",status=\"" + statusClass + "xx\"}");
+            byStatus[statusClass - 1] = histogram;
+        }
+        return histogram;
+    }
+
+} // class EndpointMetricsInterceptor
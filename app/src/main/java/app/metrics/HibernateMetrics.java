@@ -0,0 +1,165 @@
+package app.metrics;
+
+import java.lang.reflect.Field;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.query.spi.QueryPlanCache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.internal.util.collections.BoundedConcurrentHashMap;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.stat.NaturalIdCacheStatistics;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publish Hibernate's statistics as gauges: session, transaction, statement,
+ * query, entity and flush counts, and the queries run to resolve natural
+ * ids that were not cached. Each second-level cache region, natural-id
+ * regions included, also reports its hits, misses, puts and size, and its
+ * evictions when the region is backed by Ehcache. The query plan cache
+ * reports its hits, misses and size.
+ */
+@Component
+public class HibernateMetrics {
+
+    // As QueryPlanCache creates it.
+    private static final int QUERY_PLAN_CACHE_CONCURRENCY = 20;
+
+    private final Log log = LogFactory.getLog(HibernateMetrics.class);
+
+    @Value("${hibernate.query.plan_cache_max_size}")
+    private int queryPlanCacheMaxSize;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @PostConstruct
+    public void register() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        instrumentQueryPlanCache(((SessionFactoryImplementor) sessionFactory).getQueryPlanCache());
+        Statistics statistics = sessionFactory.getStatistics();
+        metricsRegistry.gauge("hibernate.sessions.opened", statistics::getSessionOpenCount);
+        metricsRegistry.gauge("hibernate.transactions", statistics::getTransactionCount);
+        metricsRegistry.gauge("hibernate.transactions.successful", statistics::getSuccessfulTransactionCount);
+        metricsRegistry.gauge("hibernate.connections.obtained", statistics::getConnectCount);
+        metricsRegistry.gauge("hibernate.statements.prepared", statistics::getPrepareStatementCount);
+        metricsRegistry.gauge("hibernate.flushes", statistics::getFlushCount);
+        metricsRegistry.gauge("hibernate.queries.executed", statistics::getQueryExecutionCount);
+        metricsRegistry.gauge("hibernate.queries.max_time_ms", statistics::getQueryExecutionMaxTime);
+        metricsRegistry.gauge("hibernate.entities.loaded", statistics::getEntityLoadCount);
+        metricsRegistry.gauge("hibernate.entities.fetched", statistics::getEntityFetchCount);
+        metricsRegistry.gauge("hibernate.entities.inserted", statistics::getEntityInsertCount);
+        metricsRegistry.gauge("hibernate.entities.updated", statistics::getEntityUpdateCount);
+        metricsRegistry.gauge("hibernate.entities.deleted", statistics::getEntityDeleteCount);
+        metricsRegistry.gauge("hibernate.optimistic_failures", statistics::getOptimisticFailureCount);
+        metricsRegistry.gauge("hibernate.natural_ids.queries", statistics::getNaturalIdQueryExecutionCount);
+        Set<String> naturalIdRegions = naturalIdRegionNames((SessionFactoryImplementor) sessionFactory);
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            String tag = "{region=\"" + region + "\"}";
+            // Natural-id regions keep their counts apart from the others.
+            if (naturalIdRegions.contains(region)) {
+                NaturalIdCacheStatistics naturalIdStatistics = statistics.getNaturalIdCacheStatistics(region);
+                metricsRegistry.gauge("hibernate.cache.hits" + tag, naturalIdStatistics::getHitCount);
+                metricsRegistry.gauge("hibernate.cache.misses" + tag, naturalIdStatistics::getMissCount);
+                metricsRegistry.gauge("hibernate.cache.puts" + tag, naturalIdStatistics::getPutCount);
+                metricsRegistry.gauge("hibernate.cache.size" + tag, naturalIdStatistics::getElementCountInMemory);
+            } else {
+                SecondLevelCacheStatistics regionStatistics = statistics.getSecondLevelCacheStatistics(region);
+                if (regionStatistics == null) {
+                    continue;
+                }
+                metricsRegistry.gauge("hibernate.cache.hits" + tag, regionStatistics::getHitCount);
+                metricsRegistry.gauge("hibernate.cache.misses" + tag, regionStatistics::getMissCount);
+                metricsRegistry.gauge("hibernate.cache.puts" + tag, regionStatistics::getPutCount);
+                metricsRegistry.gauge("hibernate.cache.size" + tag, regionStatistics::getElementCountInMemory);
+            }
+            Ehcache cache = findEhcache(region);
+            if (cache != null) {
+                metricsRegistry.gauge("hibernate.cache.evictions" + tag,
+                        () -> cache.getStatistics().cacheEvictedCount() + cache.getStatistics().cacheExpiredCount());
+            }
+        }
+    }
+
+    // Statistics.getNaturalIdCacheStatistics fails, rather than returning
+    // null, when given any other region.
+    private static Set<String> naturalIdRegionNames(SessionFactoryImplementor sessionFactory) {
+        Set<String> names = new HashSet<String>();
+        for (EntityPersister persister : sessionFactory.getEntityPersisters().values()) {
+            if (persister.hasNaturalIdCache()) {
+                names.add(persister.getNaturalIdCacheAccessStrategy().getRegion().getName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Count the hits and misses of the query plan cache, which Hibernate 5.0
+     * does not, by replacing its map with an equivalent one that counts
+     * lookups. Plans already cached, such as those of named queries, are
+     * carried over.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void instrumentQueryPlanCache(QueryPlanCache queryPlanCache) {
+        try {
+            Field field = QueryPlanCache.class.getDeclaredField("queryPlanCache");
+            field.setAccessible(true);
+            CountingPlanMap plans = new CountingPlanMap(queryPlanCacheMaxSize,
+                    metricsRegistry.counter("hibernate.query_plans.hits"),
+                    metricsRegistry.counter("hibernate.query_plans.misses"));
+            plans.putAll((BoundedConcurrentHashMap) field.get(queryPlanCache));
+            field.set(queryPlanCache, plans);
+            metricsRegistry.gauge("hibernate.query_plans.size", plans::size);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("Cannot count query plan cache hits", e);
+        }
+    }
+
+    private static final class CountingPlanMap extends BoundedConcurrentHashMap<Object, Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient LongAdder hits;
+        private final transient LongAdder misses;
+
+        CountingPlanMap(int capacity, LongAdder hits, LongAdder misses) {
+            super(capacity, QUERY_PLAN_CACHE_CONCURRENCY, Eviction.LIRS);
+            this.hits = hits;
+            this.misses = misses;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Object plan = super.get(key);
+            (plan != null ? hits : misses).increment();
+            return plan;
+        }
+    }
+
+    private static Ehcache findEhcache(String region) {
+        for (CacheManager cacheManager : CacheManager.ALL_CACHE_MANAGERS) {
+            Ehcache cache = cacheManager.getEhcache(region);
+            if (cache != null) {
+                return cache;
+            }
+        }
+        return null;
+    }
+
+} // class HibernateMetrics
@@ -0,0 +1,63 @@
+package app.metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Wrap a data source and record how long each connection acquisition takes,
+ * including any time spent waiting for a free pooled connection.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource implements Closeable {
+
+    private final LatencyHistogram acquireTime;
+
+    public InstrumentedDataSource(DataSource targetDataSource, LatencyHistogram acquireTime) {
+        super(targetDataSource);
+        this.acquireTime = acquireTime;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return super.getConnection();
+        } finally {
+            acquireTime.recordSince(start);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return super.getConnection(username, password);
+        } finally {
+            acquireTime.recordSince(start);
+        }
+    }
+
+    /**
+     * Close the wrapped data source if it holds resources, so that a pool is
+     * shut down together with the application context.
+     */
+    @Override
+    public void close() {
+        DataSource target = getTargetDataSource();
+        if (target instanceof org.apache.tomcat.jdbc.pool.DataSource) {
+            ((org.apache.tomcat.jdbc.pool.DataSource) target).close();
+        } else if (target instanceof Closeable) {
+            try {
+                ((Closeable) target).close();
+            } catch (IOException e) {
+                throw new IllegalStateException("cannot close data source", e);
+            }
+        }
+    }
+
+} // class InstrumentedDataSource
@@ -0,0 +1,85 @@
+package app.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Hold the application's named counters, gauges and latency histograms.
+ * Lookups go through a concurrent map, so callers on hot paths should keep a
+ * reference to the metric instead of looking it up on every call.
+ */
+@Component
+public class MetricsRegistry {
+
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    /**
+     * Register a gauge whose value is read from the supplier on every
+     * snapshot. Registering the same name again replaces the previous gauge.
+     */
+    public void gauge(String name, Supplier<? extends Number> supplier) {
+        gauges.put(name, supplier);
+    }
+
+    /**
+     * Return a point-in-time view of every metric, sorted by name.
+     * Histograms are summarized as count, mean, max and common percentiles,
+     * all in milliseconds.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().sum());
+        }
+        for (Map.Entry<String, Supplier<? extends Number>> entry : gauges.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().get());
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", histogram.getCount());
+            summary.put("mean", toMillis(histogram.getMean()));
+            summary.put("p50", toMillis(histogram.getValueAtPercentile(50)));
+            summary.put("p90", toMillis(histogram.getValueAtPercentile(90)));
+            summary.put("p99", toMillis(histogram.getValueAtPercentile(99)));
+            summary.put("p999", toMillis(histogram.getValueAtPercentile(99.9)));
+            summary.put("max", toMillis(histogram.getMax()));
+            snapshot.put(entry.getKey(), summary);
+        }
+        return snapshot;
+    }
+
+    Map<String, LongAdder> getCounters() {
+        return counters;
+    }
+
+    Map<String, Supplier<? extends Number>> getGauges() {
+        return gauges;
+    }
+
+    Map<String, LatencyHistogram> getHistograms() {
+        return histograms;
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+} // class MetricsRegistry
@@ -0,0 +1,118 @@
+package app.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Render a registry in the Prometheus text exposition format (version 0.0.4).
+ *
+ * Names map to Prometheus names by replacing every character other than a
+ * letter, digit, underscore or colon with an underscore; a trailing
+ * {@code {label="value"}} block is kept as the labels. Counters gain a
+ * {@code _total} suffix. Histograms become summaries in seconds, with
+ * quantiles 0.5, 0.9, 0.99 and 0.999, plus a {@code _max} gauge.
+ */
+public final class PrometheusFormat {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private PrometheusFormat() {
+    }
+
+    public static String format(MetricsRegistry registry) {
+        // Samples of one family must be contiguous and follow its TYPE line.
+        Map<String, Family> families = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : registry.getCounters().entrySet()) {
+            Name name = new Name(entry.getKey());
+            family(families, name.base + "_total", "counter")
+                    .sample(name.base + "_total", name.labels, null, entry.getValue().sum());
+        }
+        for (Map.Entry<String, Supplier<? extends Number>> entry : registry.getGauges().entrySet()) {
+            Name name = new Name(entry.getKey());
+            family(families, name.base, "gauge").sample(name.base, name.labels, null, entry.getValue().get());
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : registry.getHistograms().entrySet()) {
+            Name name = new Name(entry.getKey());
+            LatencyHistogram histogram = entry.getValue();
+            String base = name.base + "_seconds";
+            Family summary = family(families, base, "summary");
+            for (double quantile : QUANTILES) {
+                summary.sample(base, name.labels, "quantile=\"" + quantile + "\"",
+                        toSeconds(histogram.getValueAtPercentile(quantile * 100)));
+            }
+            summary.sample(base + "_sum", name.labels, null, toSeconds(histogram.getSum()));
+            summary.sample(base + "_count", name.labels, null, histogram.getCount());
+            family(families, base + "_max", "gauge")
+                    .sample(base + "_max", name.labels, null, toSeconds(histogram.getMax()));
+        }
+
+        StringBuilder out = new StringBuilder(families.size() * 128);
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            out.append("# TYPE ").append(entry.getKey()).append(' ').append(entry.getValue().type).append('\n');
+            out.append(entry.getValue().samples);
+        }
+        return out.toString();
+    }
+
+    private static Family family(Map<String, Family> families, String name, String type) {
+        return families.computeIfAbsent(name, k -> new Family(type));
+    }
+
+    private static double toSeconds(double nanos) {
+        return nanos / 1_000_000_000.0;
+    }
+
+    /**
+     * A registry name split into a sanitized base name and the contents of
+     * its label block, if any.
+     */
+    private static final class Name {
+
+        private final String base;
+        private final String labels;
+
+        Name(String name) {
+            int brace = name.indexOf('{');
+            String base = brace < 0 ? name : name.substring(0, brace);
+            StringBuilder sanitized = new StringBuilder(base.length());
+            for (int i = 0; i < base.length(); i++) {
+                char c = base.charAt(i);
+                boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':'
+                        || (c >= '0' && c <= '9' && i > 0);
+                sanitized.append(valid ? c : '_');
+            }
+            this.base = sanitized.toString();
+            this.labels = brace < 0 || !name.endsWith("}") ? "" : name.substring(brace + 1, name.length() - 1);
+        }
+    }
+
+    private static final class Family {
+
+        private final String type;
+        private final StringBuilder samples = new StringBuilder();
+
+        Family(String type) {
+            this.type = type;
+        }
+
+        void sample(String name, String labels, String extraLabel, Number value) {
+            samples.append(name);
+            if (!labels.isEmpty() || extraLabel != null) {
+                samples.append('{').append(labels);
+                if (extraLabel != null) {
+                    if (!labels.isEmpty()) {
+                        samples.append(',');
+                    }
+                    samples.append(extraLabel);
+                }
+                samples.append('}');
+            }
+            samples.append(' ').append(value == null ? "NaN" : value.toString()).append('\n');
+        }
+    }
+
+} // class PrometheusFormat
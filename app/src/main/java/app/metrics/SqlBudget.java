@@ -0,0 +1,27 @@
+package app.metrics;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Override the SQL budget for one controller method. Limits left at -1 keep
+ * the configured defaults, {@code sql.budget.max-statements} and
+ * {@code sql.budget.max-repeats}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+
+    /**
+     * The most statements one request may prepare.
+     */
+    int maxStatements() default -1;
+
+    /**
+     * The most times one request may prepare the same statement shape.
+     */
+    int maxRepeats() default -1;
+
+}
@@ -0,0 +1,13 @@
+package app.metrics;
+
+import app.AppException;
+
+/**
+ * Thrown from the statement that takes a request over its SQL budget when
+ * {@code sql.budget.mode} is {@code fail}.
+ */
+public class SqlBudgetExceededException extends AppException {
+    public SqlBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,86 @@
+package app.metrics;
+
+import java.lang.reflect.Method;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Hold every request to a SQL budget: at most {@code sql.budget.max-statements}
+ * statements, and no statement shape prepared more than
+ * {@code sql.budget.max-repeats} times, which is how an N+1 query pattern
+ * shows up. A controller method can set its own limits with
+ * {@link SqlBudget}.
+ *
+ * With {@code sql.budget.mode} set to {@code log}, a request over budget is
+ * logged as a warning when it completes. With {@code fail}, meant for tests,
+ * the statement that goes over budget throws
+ * {@link SqlBudgetExceededException} instead. {@code off} tracks nothing.
+ * Requests over budget are counted under {@code sql.budget.exceeded}.
+ */
+@Component
+public class SqlBudgetInterceptor extends HandlerInterceptorAdapter {
+
+    private static final String LOG_MODE = "log";
+    private static final String FAIL_MODE = "fail";
+
+    private final Log log = LogFactory.getLog(SqlBudgetInterceptor.class);
+
+    @Value("${sql.budget.mode}")
+    private String mode;
+
+    @Value("${sql.budget.max-statements}")
+    private int maxStatements;
+
+    @Value("${sql.budget.max-repeats}")
+    private int maxRepeats;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod) || !(LOG_MODE.equals(mode) || FAIL_MODE.equals(mode))) {
+            return true;
+        }
+        Method method = ((HandlerMethod) handler).getMethod();
+        SqlBudget budget = method.getAnnotation(SqlBudget.class);
+        SqlRequestTracker.begin(
+                method.getDeclaringClass().getSimpleName() + "." + method.getName(),
+                budget != null && budget.maxStatements() >= 0 ? budget.maxStatements() : maxStatements,
+                budget != null && budget.maxRepeats() >= 0 ? budget.maxRepeats() : maxRepeats,
+                FAIL_MODE.equals(mode));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        // The thread is released to the container; judge what ran on it.
+        complete();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        complete();
+    }
+
+    private void complete() {
+        SqlRequestTracker tracker = SqlRequestTracker.end();
+        if (tracker == null || !tracker.isOverBudget()) {
+            return;
+        }
+        metricsRegistry.counter("sql.budget.exceeded{endpoint=\"" + tracker.getEndpoint() + "\"}").increment();
+        log.warn(tracker.getEndpoint() + " exceeded its SQL budget: " + tracker.describe());
+    }
+
+} // class SqlBudgetInterceptor
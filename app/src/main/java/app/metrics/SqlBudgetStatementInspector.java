@@ -0,0 +1,17 @@
+package app.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Count every statement Hibernate prepares against the current request's
+ * SQL budget. The SQL is passed through unchanged.
+ */
+public class SqlBudgetStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlRequestTracker.statementPrepared(sql);
+        return sql;
+    }
+
+} // class SqlBudgetStatementInspector
@@ -0,0 +1,154 @@
+package app.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The SQL run by the request on the current thread: how many statements it
+ * prepared, how long JDBC took, and how often each statement shape was
+ * prepared. A shape is the SQL text with every run of {@code ?, ?, ...}
+ * collapsed, so IN lists of different lengths count as one shape.
+ *
+ * Hibernate calls into this class from the request thread; work the request
+ * hands to other threads, such as a streamed response, is not counted.
+ */
+public final class SqlRequestTracker {
+
+    private static final ThreadLocal<SqlRequestTracker> CURRENT = new ThreadLocal<>();
+
+    private final String endpoint;
+    private final int maxStatements;
+    private final int maxRepeats;
+    private final boolean failFast;
+    private final Map<String, int[]> shapes = new HashMap<>();
+    private int statements;
+    private long jdbcNanos;
+    private String mostRepeatedShape;
+    private int mostRepeats;
+
+    private SqlRequestTracker(String endpoint, int maxStatements, int maxRepeats, boolean failFast) {
+        this.endpoint = endpoint;
+        this.maxStatements = maxStatements;
+        this.maxRepeats = maxRepeats;
+        this.failFast = failFast;
+    }
+
+    /**
+     * Start tracking the current thread's request, unless it is tracked
+     * already.
+     */
+    static void begin(String endpoint, int maxStatements, int maxRepeats, boolean failFast) {
+        if (CURRENT.get() == null) {
+            CURRENT.set(new SqlRequestTracker(endpoint, maxStatements, maxRepeats, failFast));
+        }
+    }
+
+    /**
+     * Stop tracking the current thread's request and return what it ran, or
+     * null if it was not tracked.
+     */
+    static SqlRequestTracker end() {
+        SqlRequestTracker tracker = CURRENT.get();
+        CURRENT.remove();
+        return tracker;
+    }
+
+    static void statementPrepared(String sql) {
+        SqlRequestTracker tracker = CURRENT.get();
+        if (tracker != null) {
+            tracker.record(sql);
+        }
+    }
+
+    static void jdbcTime(long nanos) {
+        SqlRequestTracker tracker = CURRENT.get();
+        if (tracker != null) {
+            tracker.jdbcNanos += nanos;
+        }
+    }
+
+    private void record(String sql) {
+        statements++;
+        String shape = shape(sql);
+        int[] count = shapes.get(shape);
+        if (count == null) {
+            shapes.put(shape, count = new int[1]);
+        }
+        if (++count[0] > mostRepeats) {
+            mostRepeats = count[0];
+            mostRepeatedShape = shape;
+        }
+        if (failFast && isOverBudget()) {
+            throw new SqlBudgetExceededException(endpoint + " exceeded its SQL budget: " + describe());
+        }
+    }
+
+    boolean isOverBudget() {
+        return statements > maxStatements || mostRepeats > maxRepeats;
+    }
+
+    String getEndpoint() {
+        return endpoint;
+    }
+
+    int getStatements() {
+        return statements;
+    }
+
+    String describe() {
+        StringBuilder description = new StringBuilder()
+                .append(statements).append(" statements (budget ").append(maxStatements).append("), ")
+                .append(jdbcNanos / 1_000_000).append(" ms in JDBC");
+        if (mostRepeatedShape != null) {
+            description.append(", most repeated ").append(mostRepeats).append(" times (budget ")
+                    .append(maxRepeats).append("): ").append(mostRepeatedShape);
+        }
+        return description.toString();
+    }
+
+    static String shape(String sql) {
+        int first = sql.indexOf('?');
+        if (first < 0) {
+            return sql;
+        }
+        StringBuilder shape = null;
+        int length = sql.length();
+        int copied = 0;
+        for (int i = first; i >= 0 && i < length; i = sql.indexOf('?', i + 1)) {
+            // Find the end of a "?, ?, ?" run starting here.
+            int end = i + 1;
+            int next = end;
+            while (true) {
+                int j = next;
+                while (j < length && sql.charAt(j) == ' ') {
+                    j++;
+                }
+                if (j >= length || sql.charAt(j) != ',') {
+                    break;
+                }
+                j++;
+                while (j < length && sql.charAt(j) == ' ') {
+                    j++;
+                }
+                if (j >= length || sql.charAt(j) != '?') {
+                    break;
+                }
+                end = j + 1;
+                next = end;
+            }
+            if (end > i + 1) {
+                if (shape == null) {
+                    shape = new StringBuilder(length);
+                }
+                shape.append(sql, copied, i).append("?...");
+                copied = end;
+                i = end - 1;
+            }
+        }
+        if (shape == null) {
+            return sql;
+        }
+        return shape.append(sql, copied, length).toString();
+    }
+
+} // class SqlRequestTracker
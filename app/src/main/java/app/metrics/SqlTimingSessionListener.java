@@ -0,0 +1,34 @@
+package app.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Add the time each session spends executing statements and batches to the
+ * current request's SQL totals. Hibernate creates one listener per session.
+ */
+public class SqlTimingSessionListener extends BaseSessionEventListener {
+
+    private long executeStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        SqlRequestTracker.jdbcTime(System.nanoTime() - executeStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        SqlRequestTracker.jdbcTime(System.nanoTime() - batchStart);
+    }
+
+} // class SqlTimingSessionListener
@@ -0,0 +1,127 @@
+package app.models;
+
+import java.io.Serializable;
+import javax.persistence.Cacheable;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Version;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
+@Entity
+@Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
+@DynamicUpdate
+@NamedQueries({
+    @NamedQuery(name = User.ALL, query = "from User u"),
+    @NamedQuery(name = User.ID_BY_EMAIL, query = "select u.id from User u where u.email = :email"),
+    @NamedQuery(name = User.EMAILS, query = "select u.email from User u"),
+    @NamedQuery(name = User.SEARCH_FIELDS, query = "select u.id, u.version, u.email, u.name from User u"),
+    @NamedQuery(name = User.SEARCH, query = "from User u"
+            + " where lower(u.email) like :contains escape '!' or lower(u.name) like :contains escape '!'"
+            + " order by case when lower(u.email) = :query or lower(u.name) = :query then 0"
+            + " when lower(u.email) like :prefix escape '!' or lower(u.name) like :prefix escape '!'"
+            + " or lower(u.name) like :wordPrefix escape '!' then 1 else 2 end, u.id")
+})
+public class User implements Serializable {
+
+    // Named queries are parsed and checked when the application starts, and
+    // their plans are cached from then on.
+    public static final String ALL = "User.all";
+    public static final String ID_BY_EMAIL = "User.idByEmail";
+    public static final String EMAILS = "User.emails";
+    public static final String SEARCH_FIELDS = "User.searchFields";
+    /**
+     * Users whose email or name contains {@code :contains}, exact matches of
+     * {@code :query} first, then matches of {@code :prefix}, or of
+     * {@code :wordPrefix} within the name, then the rest.
+     */
+    public static final String SEARCH = "User.search";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_seq")
+    @SequenceGenerator(name = "users_id_seq", sequenceName = "users_id_seq", allocationSize = 50)
+    private int id;
+
+    /**
+     * Unique, and looked up by {@link org.hibernate.Session#bySimpleNaturalId}
+     * so that the id it belongs to is cached. It can be changed; Hibernate
+     * then moves the cached entry to the new email.
+     */
+    @NaturalId(mutable = true)
+    @NotNull
+    @Size(min = 3, max = 80)
+    private String email;
+
+    @NotNull
+    @Size(min = 2, max = 80)
+    private String name;
+
+    /**
+     * Incremented by Hibernate on every update, and checked by it so that a
+     * concurrent update fails instead of being overwritten. Clients can read
+     * it but not set it.
+     */
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int version;
+
+    public User() {
+    }
+
+    public User(int id) {
+        this.id = id;
+    }
+
+    public User(String email, String name) {
+        this.email = email;
+        this.name = name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int value) {
+        this.id = value;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String value) {
+        this.email = value;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String value) {
+        this.name = value;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int value) {
+        this.version = value;
+    }
+
+} // class User
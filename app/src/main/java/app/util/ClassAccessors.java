@@ -0,0 +1,197 @@
+package app.util;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The getters of one class, resolved once and kept as method handles. Use
+ * {@link #of(Class)} to obtain the shared instance for a class; instances are
+ * cached per class through a {@link ClassValue}, so repeated lookups cost a
+ * single map probe and no reflection.
+ */
+final class ClassAccessors {
+
+    private static final ClassValue<ClassAccessors> CACHE = new ClassValue<ClassAccessors>() {
+        @Override
+        protected ClassAccessors computeValue(Class<?> type) {
+            return new ClassAccessors(type);
+        }
+    };
+
+    private static final MethodType INT_GETTER = MethodType.methodType(int.class, Object.class);
+    private static final MethodType OBJECT_GETTER = MethodType.methodType(Object.class, Object.class);
+
+    private final IntGetter id;
+    private final IntGetter version;
+    private final boolean hasIdMethod;
+    private final Property[] properties;
+
+    private ClassAccessors(Class<?> type) {
+        this.id = IntGetter.find(type, "getId");
+        this.version = IntGetter.find(type, "getVersion");
+        boolean found = false;
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals("getId")) {
+                found = true;
+                break;
+            }
+        }
+        this.hasIdMethod = found;
+        this.properties = findProperties(type);
+    }
+
+    static ClassAccessors of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    int getId(Object object) {
+        return id.get(object);
+    }
+
+    int getVersion(Object object) {
+        return version.get(object);
+    }
+
+    /**
+     * Return true if the class has a public method named getId, whatever its
+     * parameters.
+     */
+    boolean hasIdMethod() {
+        return hasIdMethod;
+    }
+
+    /**
+     * Return the readable bean properties, in the order the
+     * {@link Introspector} reports them, or null if the class cannot be
+     * introspected.
+     */
+    Property[] getProperties() {
+        return properties;
+    }
+
+    private static Property[] findProperties(Class<?> type) {
+        PropertyDescriptor[] descriptors;
+        try {
+            descriptors = Introspector.getBeanInfo(type, Object.class).getPropertyDescriptors();
+        } catch (IntrospectionException e) {
+            return null;
+        }
+        List<Property> properties = new ArrayList<Property>(descriptors.length);
+        for (PropertyDescriptor descriptor : descriptors) {
+            Method readMethod = descriptor.getReadMethod();
+            if (readMethod != null) {
+                MethodHandle handle = unreflect(readMethod);
+                if (handle != null) {
+                    properties.add(new Property(descriptor.getName(), handle.asType(OBJECT_GETTER)));
+                }
+            }
+        }
+        return properties.toArray(new Property[properties.size()]);
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        try {
+            return MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            // A public method declared by a non-public class.
+            try {
+                method.setAccessible(true);
+                return MethodHandles.lookup().unreflect(method);
+            } catch (IllegalAccessException | RuntimeException e2) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * A readable bean property.
+     */
+    static final class Property {
+
+        private final String name;
+        private final MethodHandle getter;
+
+        private Property(String name, MethodHandle getter) {
+            this.name = name;
+            this.getter = getter;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Object get(Object object) throws Throwable {
+            return (Object) getter.invokeExact(object);
+        }
+    }
+
+    /**
+     * A no-argument getter expected to return an int. Getters declared as
+     * returning a primitive int are invoked without boxing.
+     */
+    private static final class IntGetter {
+
+        private final String name;
+        private final MethodHandle primitive;
+        private final MethodHandle boxed;
+        private final Exception missing;
+
+        private IntGetter(String name, MethodHandle primitive, MethodHandle boxed, Exception missing) {
+            this.name = name;
+            this.primitive = primitive;
+            this.boxed = boxed;
+            this.missing = missing;
+        }
+
+        static IntGetter find(Class<?> type, String name) {
+            Method method;
+            try {
+                method = type.getMethod(name);
+            } catch (NoSuchMethodException | SecurityException e) {
+                return new IntGetter(name, null, null, e);
+            }
+            MethodHandle handle = unreflect(method);
+            if (handle == null) {
+                return new IntGetter(name, null, null, null);
+            }
+            if (method.getReturnType() == int.class) {
+                return new IntGetter(name, handle.asType(INT_GETTER), null, null);
+            }
+            return new IntGetter(name, null, handle.asType(OBJECT_GETTER), null);
+        }
+
+        int get(Object object) {
+            if (missing != null) {
+                throw new IllegalStateException("object has no " + name + " method", missing);
+            }
+            if (primitive != null) {
+                try {
+                    return (int) primitive.invokeExact(object);
+                } catch (Throwable t) {
+                    throw new RuntimeException("cannot invoke " + name + " on object", t);
+                }
+            }
+            if (boxed == null) {
+                throw new RuntimeException("cannot invoke " + name + " on object");
+            }
+            Object value;
+            try {
+                value = (Object) boxed.invokeExact(object);
+            } catch (Throwable t) {
+                throw new RuntimeException("cannot invoke " + name + " on object", t);
+            }
+            if (!(value instanceof Integer)) {
+                throw new RuntimeException("object " + name + "() returned non-Integer.");
+            }
+            return (Integer) value;
+        }
+    }
+
+} // class ClassAccessors
@@ -0,0 +1,186 @@
+package app.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * A single-pass parser for the ISO-8601 shapes that
+ * {@link Util#dateTimeFromISO8601} sees in practice:
+ *
+ * <pre>
+ * yyyy-MM-dd
+ * yyyy-MM-dd('T'|' ')HH:mm[:ss[.fffffffff]]
+ * yyyy-MM-dd('T'|' ')HH:mm[:ss[.fffffffff]]('Z'|&plusmn;HH|&plusmn;HH:mm|&plusmn;HH:mm:ss)
+ * </pre>
+ *
+ * Values with an offset are converted to UTC. The parser reads the string
+ * in place, allocates nothing but the result and never throws; anything it
+ * does not recognize, including out-of-range fields, yields null so that the
+ * caller can fall back to the general java.time parsers.
+ */
+final class Iso8601Parser {
+
+    private static final int SECONDS_PER_DAY = 86400;
+    private static final int MAX_OFFSET_SECONDS = 18 * 3600;
+    private static final long DAYS_0000_TO_1970 = 719528L;
+    private static final int[] NANO_SCALE = {
+        0, 100000000, 10000000, 1000000, 100000, 10000, 1000, 100, 10, 1
+    };
+
+    private Iso8601Parser() {
+    }
+
+    static LocalDateTime parse(CharSequence s) {
+        int length = s.length();
+        if (length < 10 || s.charAt(4) != '-' || s.charAt(7) != '-') {
+            return null;
+        }
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return null;
+        }
+        if (length == 10) {
+            return LocalDateTime.of(year, month, day, 0, 0);
+        }
+
+        char separator = s.charAt(10);
+        if ((separator != 'T' && separator != ' ') || length < 16 || s.charAt(13) != ':') {
+            return null;
+        }
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return null;
+        }
+        int second = 0;
+        int nano = 0;
+        int pos = 16;
+        if (pos < length && s.charAt(pos) == ':') {
+            second = digits(s, pos + 1, 2);
+            if (second < 0 || second > 59) {
+                return null;
+            }
+            pos += 3;
+            if (pos < length && s.charAt(pos) == '.') {
+                int start = ++pos;
+                while (pos < length && pos - start < 9 && isDigit(s.charAt(pos))) {
+                    nano = nano * 10 + (s.charAt(pos) - '0');
+                    pos++;
+                }
+                int count = pos - start;
+                if (count == 0 || (pos < length && isDigit(s.charAt(pos)))) {
+                    return null;
+                }
+                nano *= NANO_SCALE[count];
+            }
+        }
+        if (pos == length) {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        }
+
+        int offset = parseOffset(s, pos);
+        if (offset == Integer.MIN_VALUE) {
+            return null;
+        }
+        long epochSecond = epochDay(year, month, day) * SECONDS_PER_DAY
+                + hour * 3600 + minute * 60 + second - offset;
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+
+    /**
+     * Parse an offset that runs to the end of the string, returning its
+     * total seconds or Integer.MIN_VALUE if it is not recognized.
+     */
+    private static int parseOffset(CharSequence s, int pos) {
+        int length = s.length();
+        char sign = s.charAt(pos);
+        if (sign == 'Z') {
+            return pos + 1 == length ? 0 : Integer.MIN_VALUE;
+        }
+        if (sign != '+' && sign != '-') {
+            return Integer.MIN_VALUE;
+        }
+        int remaining = length - pos - 1;
+        if (remaining != 2 && remaining != 5 && remaining != 8) {
+            return Integer.MIN_VALUE;
+        }
+        int hours = digits(s, pos + 1, 2);
+        int minutes = 0;
+        int seconds = 0;
+        if (remaining >= 5) {
+            minutes = s.charAt(pos + 3) == ':' ? digits(s, pos + 4, 2) : -1;
+        }
+        if (remaining == 8) {
+            seconds = s.charAt(pos + 6) == ':' ? digits(s, pos + 7, 2) : -1;
+        }
+        if (hours < 0 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59) {
+            return Integer.MIN_VALUE;
+        }
+        int total = hours * 3600 + minutes * 60 + seconds;
+        if (total > MAX_OFFSET_SECONDS) {
+            return Integer.MIN_VALUE;
+        }
+        return sign == '-' ? -total : total;
+    }
+
+    /**
+     * Read a fixed number of decimal digits, returning -1 if any is missing.
+     */
+    private static int digits(CharSequence s, int start, int count) {
+        if (start + count > s.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Days since 1970-01-01 for a date with a non-negative year, as computed
+     * by LocalDate.toEpochDay.
+     */
+    private static long epochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y + (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+} // class Iso8601Parser
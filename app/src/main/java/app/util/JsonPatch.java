@@ -0,0 +1,240 @@
+package app.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Apply an RFC 6902 JSON Patch to a Jackson tree. All six operations are
+ * supported: add, remove, replace, move, copy and test. Paths are RFC 6901
+ * JSON Pointers.
+ *
+ * A patch that is not a well-formed patch document fails with
+ * {@link IllegalArgumentException}. A well-formed patch that cannot be
+ * applied to the document, because a path does not exist or a test fails,
+ * fails with {@link IllegalStateException}. The target is never modified.
+ */
+public final class JsonPatch {
+
+    /**
+     * Equality for the test operation. Jackson compares numbers by type as
+     * well as value, so 1 and 1.0 differ, but RFC 6902 has them equal.
+     * Containers are compared member by member using this for their values.
+     */
+    private static final Comparator<JsonNode> VALUE_EQUALITY = (a, b) -> {
+        if (a.isNumber() && b.isNumber()) {
+            return a.decimalValue().compareTo(b.decimalValue());
+        }
+        return a.equals(b) ? 0 : 1;
+    };
+
+    private JsonPatch() {
+    }
+
+    /**
+     * Return a patched copy of the target.
+     */
+    public static JsonNode apply(JsonNode patch, JsonNode target) {
+        if (patch == null || !patch.isArray()) {
+            throw new IllegalArgumentException("a JSON patch must be an array of operations");
+        }
+        JsonNode document = target.deepCopy();
+        for (JsonNode operation : patch) {
+            if (!operation.isObject()) {
+                throw new IllegalArgumentException("a JSON patch operation must be an object");
+            }
+            String op = text(operation, "op");
+            List<String> path = parsePointer(text(operation, "path"));
+            switch (op) {
+                case "add":
+                    document = add(document, path, value(operation));
+                    break;
+                case "remove":
+                    document = remove(document, path);
+                    break;
+                case "replace":
+                    document = replace(document, path, value(operation));
+                    break;
+                case "move": {
+                    List<String> from = parsePointer(text(operation, "from"));
+                    if (from.size() < path.size() && path.subList(0, from.size()).equals(from)) {
+                        throw new IllegalStateException("cannot move a value into itself");
+                    }
+                    JsonNode value = get(document, from);
+                    document = add(remove(document, from), path, value);
+                    break;
+                }
+                case "copy": {
+                    List<String> from = parsePointer(text(operation, "from"));
+                    document = add(document, path, get(document, from).deepCopy());
+                    break;
+                }
+                case "test":
+                    if (!get(document, path).equals(VALUE_EQUALITY, value(operation))) {
+                        throw new IllegalStateException("test failed at " + text(operation, "path"));
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown JSON patch operation: " + op);
+            }
+        }
+        return document;
+    }
+
+    private static String text(JsonNode operation, String field) {
+        JsonNode node = operation.get(field);
+        if (node == null || !node.isTextual()) {
+            throw new IllegalArgumentException("JSON patch operation is missing \"" + field + "\"");
+        }
+        return node.asText();
+    }
+
+    private static JsonNode value(JsonNode operation) {
+        JsonNode value = operation.get("value");
+        if (value == null) {
+            throw new IllegalArgumentException("JSON patch operation is missing \"value\"");
+        }
+        return value;
+    }
+
+    /**
+     * Split a JSON Pointer into its unescaped reference tokens.
+     */
+    static List<String> parsePointer(String pointer) {
+        List<String> tokens = new ArrayList<>();
+        if (pointer.isEmpty()) {
+            return tokens;
+        }
+        if (pointer.charAt(0) != '/') {
+            throw new IllegalArgumentException("JSON pointer must start with '/': " + pointer);
+        }
+        int start = 1;
+        while (true) {
+            int end = pointer.indexOf('/', start);
+            String token = pointer.substring(start, end < 0 ? pointer.length() : end);
+            if (token.indexOf('~') >= 0) {
+                token = unescape(token, pointer);
+            }
+            tokens.add(token);
+            if (end < 0) {
+                return tokens;
+            }
+            start = end + 1;
+        }
+    }
+
+    private static String unescape(String token, String pointer) {
+        StringBuilder unescaped = new StringBuilder(token.length());
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c == '~') {
+                char next = i + 1 < token.length() ? token.charAt(++i) : 0;
+                if (next == '0') {
+                    c = '~';
+                } else if (next == '1') {
+                    c = '/';
+                } else {
+                    throw new IllegalArgumentException("invalid escape in JSON pointer: " + pointer);
+                }
+            }
+            unescaped.append(c);
+        }
+        return unescaped.toString();
+    }
+
+    private static JsonNode get(JsonNode document, List<String> path) {
+        JsonNode node = document;
+        for (String token : path) {
+            if (node.isObject()) {
+                node = node.get(token);
+            } else if (node.isArray()) {
+                int index = arrayIndex(token, node.size() - 1);
+                node = node.get(index);
+            } else {
+                node = null;
+            }
+            if (node == null) {
+                throw new IllegalStateException("no value at /" + String.join("/", path));
+            }
+        }
+        return node;
+    }
+
+    private static JsonNode add(JsonNode document, List<String> path, JsonNode value) {
+        if (path.isEmpty()) {
+            return value;
+        }
+        JsonNode parent = get(document, path.subList(0, path.size() - 1));
+        String last = path.get(path.size() - 1);
+        if (parent.isObject()) {
+            ((ObjectNode) parent).set(last, value);
+        } else if (parent.isArray()) {
+            ArrayNode array = (ArrayNode) parent;
+            if ("-".equals(last)) {
+                array.add(value);
+            } else {
+                array.insert(arrayIndex(last, array.size()), value);
+            }
+        } else {
+            throw new IllegalStateException("cannot add to a scalar at /" + String.join("/", path));
+        }
+        return document;
+    }
+
+    private static JsonNode replace(JsonNode document, List<String> path, JsonNode value) {
+        if (path.isEmpty()) {
+            return value;
+        }
+        JsonNode parent = get(document, path.subList(0, path.size() - 1));
+        String last = path.get(path.size() - 1);
+        if (parent.isObject() && parent.has(last)) {
+            ((ObjectNode) parent).set(last, value);
+        } else if (parent.isArray()) {
+            ((ArrayNode) parent).set(arrayIndex(last, parent.size() - 1), value);
+        } else {
+            throw new IllegalStateException("no value at /" + String.join("/", path));
+        }
+        return document;
+    }
+
+    private static JsonNode remove(JsonNode document, List<String> path) {
+        if (path.isEmpty()) {
+            throw new IllegalStateException("cannot remove the whole document");
+        }
+        JsonNode parent = get(document, path.subList(0, path.size() - 1));
+        String last = path.get(path.size() - 1);
+        if (parent.isObject() && parent.has(last)) {
+            ((ObjectNode) parent).remove(last);
+        } else if (parent.isArray()) {
+            ((ArrayNode) parent).remove(arrayIndex(last, parent.size() - 1));
+        } else {
+            throw new IllegalStateException("no value at /" + String.join("/", path));
+        }
+        return document;
+    }
+
+    /**
+     * Parse an array index no greater than max. RFC 6901 allows no sign and
+     * no leading zeros.
+     */
+    private static int arrayIndex(String token, int max) {
+        boolean digits = !token.isEmpty() && token.length() <= 9 && (token.length() == 1 || token.charAt(0) != '0');
+        for (int i = 0; digits && i < token.length(); i++) {
+            char c = token.charAt(i);
+            digits = c >= '0' && c <= '9';
+        }
+        if (!digits) {
+            throw new IllegalStateException("invalid array index: " + token);
+        }
+        int index = Integer.parseInt(token);
+        if (index > max) {
+            throw new IllegalStateException("array index out of bounds: " + token);
+        }
+        return index;
+    }
+
+} // class JsonPatch
@@ -0,0 +1,231 @@
+package app.util;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Write the pretty-printed dump produced by {@link Util#dump} straight into
+ * an {@link Appendable}, so that the cost is linear in the size of the
+ * output. Nesting beyond the depth limit is written as "...", and output
+ * stops at the size limit, also marked with "...".
+ *
+ * Lists render as [...], sets as <...>, maps and entities as {...}. An
+ * object reached a second time renders as XXX.
+ */
+final class ObjectDumper {
+
+    private static final String ELLIPSIS = "...";
+    private static final String INDENT = "    ";
+    private static final String[] INDENTS = new String[16];
+
+    static {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < INDENTS.length; i++) {
+            INDENTS[i] = sb.toString();
+            sb.append(INDENT);
+        }
+    }
+
+    private final Appendable out;
+    private final int maxDepth;
+    private long remaining;
+    private boolean truncated;
+    private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
+    ObjectDumper(Appendable out, int maxDepth, long maxChars) {
+        this.out = out;
+        this.maxDepth = maxDepth;
+        this.remaining = maxChars;
+    }
+
+    void write(Object object) throws IOException {
+        write(object, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void write(Object object, int depth) throws IOException {
+        if (truncated) {
+            return;
+        }
+        if (object == null) {
+            append("null");
+        } else if (object instanceof String) {
+            append('"');
+            append((String) object);
+            append('"');
+        } else if (object instanceof Number) {
+            append(object.toString());
+        } else if (object instanceof List) {
+            writeCollection((List<Object>) object, '[', ']', depth);
+        } else if (object instanceof Set) {
+            writeCollection((Set<Object>) object, '<', '>', depth);
+        } else if (object instanceof Map) {
+            writeMap((Map<Object, Object>) object, depth);
+        } else {
+            ClassAccessors accessors = ClassAccessors.of(object.getClass());
+            if (accessors.hasIdMethod()) {
+                writeEntity(object, accessors, depth);
+            } else {
+                append(object.toString());
+            }
+        }
+    }
+
+    private void writeCollection(Collection<Object> collection, char open, char close, int depth)
+            throws IOException {
+        if (collection.isEmpty()) {
+            append(open);
+            append(close);
+            return;
+        }
+        if (!enter(collection, depth)) {
+            return;
+        }
+        append(open);
+        append('\n');
+        int count = 0;
+        int size = collection.size();
+        for (Object element : collection) {
+            if (truncated) {
+                return;
+            }
+            indent(depth + 1);
+            write(element, depth + 1);
+            if (++count < size) {
+                append(',');
+            }
+            append('\n');
+        }
+        indent(depth);
+        append(close);
+    }
+
+    private void writeMap(Map<Object, Object> map, int depth) throws IOException {
+        if (map.isEmpty()) {
+            append("{}");
+            return;
+        }
+        if (!enter(map, depth)) {
+            return;
+        }
+        append("{\n");
+        int count = 0;
+        int size = map.size();
+        for (Map.Entry<Object, Object> entry : map.entrySet()) {
+            if (truncated) {
+                return;
+            }
+            indent(depth + 1);
+            write(entry.getKey(), depth + 1);
+            append(": ");
+            write(entry.getValue(), depth + 1);
+            if (++count < size) {
+                append(',');
+            }
+            append('\n');
+        }
+        indent(depth);
+        append('}');
+    }
+
+    private void writeEntity(Object entity, ClassAccessors accessors, int depth) throws IOException {
+        ClassAccessors.Property[] properties = accessors.getProperties();
+        if (properties == null) {
+            append("ERR");
+            return;
+        }
+        if (properties.length == 0) {
+            append("{}");
+            return;
+        }
+        if (!enter(entity, depth)) {
+            return;
+        }
+        append("{\n");
+        boolean first = true;
+        for (ClassAccessors.Property property : properties) {
+            Object value;
+            try {
+                value = property.get(entity);
+            } catch (Throwable t) {
+                // best-effort only
+                continue;
+            }
+            if (truncated) {
+                return;
+            }
+            if (!first) {
+                append(",\n");
+            }
+            first = false;
+            indent(depth + 1);
+            append('"');
+            append(property.getName());
+            append("\": ");
+            write(value, depth + 1);
+        }
+        append('\n');
+        indent(depth);
+        append('}');
+    }
+
+    /**
+     * Mark a container as visited, writing a placeholder and returning false
+     * if it was seen before or lies beyond the depth limit.
+     */
+    private boolean enter(Object container, int depth) throws IOException {
+        if (!visited.add(container)) {
+            append("XXX");
+            return false;
+        }
+        if (depth >= maxDepth) {
+            append(ELLIPSIS);
+            return false;
+        }
+        return true;
+    }
+
+    private void indent(int depth) throws IOException {
+        if (depth < INDENTS.length) {
+            append(INDENTS[depth]);
+        } else {
+            for (int i = 0; i < depth; i++) {
+                append(INDENT);
+            }
+        }
+    }
+
+    private void append(String s) throws IOException {
+        if (truncated) {
+            return;
+        }
+        if (s.length() <= remaining) {
+            out.append(s);
+            remaining -= s.length();
+        } else {
+            out.append(s, 0, (int) remaining);
+            out.append(ELLIPSIS);
+            remaining = 0;
+            truncated = true;
+        }
+    }
+
+    private void append(char c) throws IOException {
+        if (truncated) {
+            return;
+        }
+        if (remaining > 0) {
+            out.append(c);
+            remaining--;
+        } else {
+            out.append(ELLIPSIS);
+            truncated = true;
+        }
+    }
+
+} // class ObjectDumper
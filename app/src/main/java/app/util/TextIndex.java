@@ -0,0 +1,334 @@
+package app.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory index of short text fields by int id, answering prefix and
+ * substring queries without visiting every document. Matching ignores case.
+ *
+ * Every field, and every word of a field, is a term in a sorted dictionary,
+ * so a prefix query is a range of that dictionary. Every field is also split
+ * into trigrams; a substring query intersects the lists of documents that
+ * contain each of its trigrams and checks only the documents left over.
+ *
+ * Thread-safe: searches share a read lock and changes take the write lock.
+ */
+public final class TextIndex {
+
+    private static final int GRAM = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, String[]> documents = new HashMap<>();
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Postings> trigrams = new HashMap<>();
+
+    /**
+     * Return the text as it is indexed and matched: trimmed and lower case.
+     */
+    public static String normalize(String text) {
+        return text == null ? null : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Index a document's fields, replacing any previous version of it. Null
+     * fields are allowed.
+     */
+    public void put(int id, String... fields) {
+        String[] normalized = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            normalized[i] = normalize(fields[i]);
+        }
+        lock.writeLock().lock();
+        try {
+            String[] previous = documents.put(id, normalized);
+            if (previous != null) {
+                unindex(id, previous);
+            }
+            for (String term : terms(normalized)) {
+                terms.computeIfAbsent(term, t -> new Postings()).add(id);
+            }
+            for (String field : normalized) {
+                for (int i = 0; field != null && i + GRAM <= field.length(); i++) {
+                    trigrams.computeIfAbsent(trigram(field, i), t -> new Postings()).add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a document, returning false if it was not indexed.
+     */
+    public boolean remove(int id) {
+        lock.writeLock().lock();
+        try {
+            String[] previous = documents.remove(id);
+            if (previous == null) {
+                return false;
+            }
+            unindex(id, previous);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unindex(int id, String[] fields) {
+        for (String term : terms(fields)) {
+            Postings postings = terms.get(term);
+            if (postings != null && postings.remove(id) && postings.size == 0) {
+                terms.remove(term);
+            }
+        }
+        for (String field : fields) {
+            for (int i = 0; field != null && i + GRAM <= field.length(); i++) {
+                Long trigram = trigram(field, i);
+                Postings postings = trigrams.get(trigram);
+                if (postings != null && postings.remove(id) && postings.size == 0) {
+                    trigrams.remove(trigram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the ids of up to {@code limit} documents matching the query,
+     * after skipping {@code offset} of them, best match first:
+     * <ol>
+     * <li>documents with a field or word equal to the query, by id;</li>
+     * <li>documents with a field or word starting with the query, in order
+     * of that word and then by id;</li>
+     * <li>documents containing the query anywhere, by id. Queries shorter
+     * than three characters skip this step.</li>
+     * </ol>
+     * Each step stops as soon as enough documents have been found, so the
+     * cost depends on offset + limit rather than on the number of matches.
+     */
+    public int[] search(String query, int offset, int limit) {
+        String q = normalize(query);
+        if (q == null || q.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+        Hits hits = new Hits(offset + limit);
+        lock.readLock().lock();
+        try {
+            hits.addAll(terms.get(q));
+            for (Postings postings : terms.subMap(q, false, q + Character.MAX_VALUE, false).values()) {
+                if (hits.isFull()) {
+                    break;
+                }
+                hits.addAll(postings);
+            }
+            if (!hits.isFull() && q.length() >= GRAM) {
+                addContaining(q, hits);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return hits.page(offset);
+    }
+
+    private void addContaining(String q, Hits hits) {
+        Postings[] lists = new Postings[q.length() - GRAM + 1];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = trigrams.get(trigram(q, i));
+            if (lists[i] == null) {
+                return;
+            }
+        }
+        // Walk the shortest list, and probe the others by binary search.
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        Postings shortest = lists[0];
+        for (int i = 0; i < shortest.size && !hits.isFull(); i++) {
+            int id = shortest.ids[i];
+            boolean candidate = !hits.contains(id);
+            for (int j = 1; candidate && j < lists.length; j++) {
+                candidate = lists[j].contains(id);
+            }
+            // Trigrams may match out of order; check the text itself.
+            if (candidate && containsInAnyField(documents.get(id), q)) {
+                hits.add(id);
+            }
+        }
+    }
+
+    private static boolean containsInAnyField(String[] fields, String q) {
+        for (String field : fields) {
+            if (field != null && field.contains(q)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the fields of a document as indexed, or null if it is not.
+     */
+    public String[] get(int id) {
+        lock.readLock().lock();
+        try {
+            String[] fields = documents.get(id);
+            return fields == null ? null : fields.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTrigramCount() {
+        lock.readLock().lock();
+        try {
+            return trigrams.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Return the terms of a document: each field, and each run of letters
+     * and digits in a field.
+     */
+    private static Set<String> terms(String[] fields) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String field : fields) {
+            if (field == null || field.isEmpty()) {
+                continue;
+            }
+            terms.add(field);
+            int start = -1;
+            for (int i = 0; i <= field.length(); i++) {
+                boolean wordChar = i < field.length() && Character.isLetterOrDigit(field.charAt(i));
+                if (wordChar && start < 0) {
+                    start = i;
+                } else if (!wordChar && start >= 0) {
+                    if (start > 0 || i < field.length()) {
+                        terms.add(field.substring(start, i));
+                    }
+                    start = -1;
+                }
+            }
+        }
+        return terms;
+    }
+
+    private static Long trigram(String text, int from) {
+        return ((long) text.charAt(from) << 32) | ((long) text.charAt(from + 1) << 16) | text.charAt(from + 2);
+    }
+
+    /**
+     * The sorted ids of the documents that contain a term or trigram.
+     */
+    private static final class Postings {
+
+        private int[] ids = new int[2];
+        private int size;
+
+        boolean add(int id) {
+            // Ids are mostly allocated in increasing order, so appending is
+            // the common case.
+            if (size == 0 || id > ids[size - 1]) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+                ids[size++] = id;
+                return true;
+            }
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return false;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+            return true;
+        }
+
+        boolean remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+
+    /**
+     * The distinct ids found so far, in rank order, up to a capacity.
+     */
+    private static final class Hits {
+
+        private final int capacity;
+        private final IntHashSet seen = new IntHashSet();
+        private int[] ids = new int[16];
+        private int size;
+
+        Hits(int capacity) {
+            this.capacity = capacity;
+        }
+
+        boolean isFull() {
+            return size >= capacity;
+        }
+
+        boolean contains(int id) {
+            return seen.contains(id);
+        }
+
+        void add(int id) {
+            if (!isFull() && seen.add(id)) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+                ids[size++] = id;
+            }
+        }
+
+        void addAll(Postings postings) {
+            for (int i = 0; postings != null && i < postings.size && !isFull(); i++) {
+                add(postings.ids[i]);
+            }
+        }
+
+        int[] page(int offset) {
+            return offset >= size ? new int[0] : Arrays.copyOfRange(ids, offset, size);
+        }
+    }
+
+} // class TextIndex
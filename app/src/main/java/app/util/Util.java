@@ -4,11 +4,7 @@ import org.hibernate.criterion.Order;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.io.IOException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
@@ -62,48 +58,55 @@ public final class Util {
         throw new IllegalStateException("Cannot determine type parameter for " + clazz.getName());
     }
 
+    /**
+     * Return the result of the object's getId() method, which must return an
+     * int or Integer. The getter is resolved once per class.
+     */
     public static int getObjectId(Object object) {
         if (object == null) {
             throw new IllegalStateException("cannot read id of null object");
         }
-        Method method;
-        try {
-            method = object.getClass().getMethod("getId", (Class<?>[]) null);
-        } catch (NoSuchMethodException | SecurityException e) {
-            throw new IllegalStateException("object has no getId method", e);
-        }
-        Object idObject;
-        try {
-            idObject = method.invoke(object, (Object[]) null);
-        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-            throw new RuntimeException("cannot invoke getId on object", e);
-        }
-        if (!(idObject instanceof Integer)) {
-            throw new RuntimeException("object getId() returned non-Integer.");
-        }
-        return (Integer) idObject;
+        return ClassAccessors.of(object.getClass()).getId(object);
     }
 
+    /**
+     * Return the result of the object's getVersion() method, which must
+     * return an int or Integer. The getter is resolved once per class.
+     */
     public static int getObjectVersion(Object object) {
         if (object == null) {
-            throw new IllegalStateException("cannot read id of null object");
-        }
-        Method method;
-        try {
-            method = object.getClass().getMethod("getVersion", (Class<?>[]) null);
-        } catch (NoSuchMethodException | SecurityException e) {
-            throw new IllegalStateException("object has no getVersion method", e);
-        }
-        Object versionObject;
-        try {
-            versionObject = method.invoke(object, (Object[]) null);
-        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-            throw new RuntimeException("cannot invoke getVersion on object", e);
+            throw new IllegalStateException("cannot read version of null object");
         }
-        if (!(versionObject instanceof Integer)) {
-            throw new RuntimeException("object getVersion() returned non-Integer.");
+        return ClassAccessors.of(object.getClass()).getVersion(object);
+    }
+
+    /**
+     * Return a strong entity tag for one version of an entity.
+     */
+    public static String getEntityTag(int id, int version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    /**
+     * Return a strong entity tag for the object's current id and version.
+     */
+    public static String getEntityTag(Object object) {
+        return getEntityTag(getObjectId(object), getObjectVersion(object));
+    }
+
+    /**
+     * Return a strong entity tag for a list of objects and any other state
+     * the response carries, which changes whenever an object is added,
+     * removed, reordered or updated.
+     */
+    public static String getEntityTag(Iterable<?> objects, long extra) {
+        long hash = 0xcbf29ce484222325L;
+        for (Object object : objects) {
+            hash = (hash ^ getObjectId(object)) * 0x100000001b3L;
+            hash = (hash ^ getObjectVersion(object)) * 0x100000001b3L;
         }
-        return (Integer) versionObject;
+        hash = (hash ^ extra) * 0x100000001b3L;
+        return "\"" + Long.toHexString(hash) + "\"";
     }
 
     /**
@@ -180,6 +183,8 @@ public final class Util {
         }
     }
 
+    private static final int DEFAULT_DUMP_MAX_DEPTH = 64;
+
     /**
      * Pretty-print a dump of this object, recursively parsing any lists, sets,
      * maps, and properties.
@@ -188,137 +193,25 @@ public final class Util {
      * @return
      */
     public static String dump(Object object) {
-        return dump(object, null, 0);
-    }
-
-    private static final String indent(int indent) {
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < indent; i++) {
-            sb.append("    ");
+        try {
+            dump(object, sb, DEFAULT_DUMP_MAX_DEPTH, Long.MAX_VALUE);
+        } catch (IOException e) {
+            // StringBuilder does not throw.
+            throw new IllegalStateException(e);
         }
         return sb.toString();
     }
 
-    @SuppressWarnings({"rawtypes", "unchecked"})
-    private static String dump(Object object, Set<Integer> visited, int indent) {
-        if (visited == null) {
-            visited = new HashSet<Integer>();
-        } else if (object != null) {
-            int identity = System.identityHashCode(object);
-            if (visited.contains(identity)) {
-                return "XXX";
-            }
-            visited.add(identity);
-        }
-
-        StringBuilder sb = new StringBuilder();
-        if (object == null) {
-            sb.append("null");
-        } else if (object instanceof String) {
-            sb.append("\"" + (String) object + "\"");
-        } else if (object instanceof Number) {
-            sb.append((Number) object);
-        } else if (object instanceof List) {
-            List<Object> list = (List<Object>) object;
-            int size = list.size();
-            if (list.isEmpty()) {
-                return "[]";
-            }
-            sb.append("[\n");
-            int count = 0;
-            for (Object o : (List) object) {
-                count++;
-                sb.append(indent(indent + 1));
-                sb.append(dump(o, visited, indent + 1));
-                if (count < size) {
-                    sb.append(',');
-                }
-                sb.append('\n');
-            }
-            sb.append("]");
-        } else if (object instanceof Set) {
-            Set<Object> set = (Set<Object>) object;
-            int size = set.size();
-            if (set.isEmpty()) {
-                return "<>";
-            }
-            sb.append("<\n");
-            int count = 0;
-            for (Object o : set) {
-                count++;
-                sb.append(indent(indent + 1));
-                sb.append(dump(o, visited, indent + 1));
-                if (count < size) {
-                    sb.append(',');
-                }
-                sb.append("\n");
-            }
-            sb.append(indent(indent));
-            sb.append('>');
-        } else if (object instanceof Map) {
-            Map<Object, Object> map = (Map<Object, Object>) object;
-            int size = map.size();
-            if (map.isEmpty()) {
-                return "{}";
-            }
-            sb.append("{\n");
-            int count = 0;
-            for (Map.Entry<Object, Object> entry : map.entrySet()) {
-                count++;
-                sb.append(indent(indent + 1));
-                sb.append(dump(entry.getKey(), visited, indent + 1));
-                sb.append(": ");
-                sb.append(dump(entry.getValue(), visited, indent + 1));
-                if (count < size) {
-                    sb.append(',');
-                }
-                sb.append('\n');
-            }
-            sb.append(indent(indent));
-            sb.append("}");
-        } else {
-            // Is this an entity object (does it have a getId(...) method for any argument type?)
-            boolean hasGetId = false;
-            Method[] methods = object.getClass().getMethods();
-            for (Method method : methods) {
-                if (method.getName().equals("getId"));
-                hasGetId = true;
-            }
-
-            // If this is an entity object, convert it to a map and then render the map.
-            if (hasGetId) {
-                Map<String, Object> map = new HashMap<String, Object>();
-                PropertyDescriptor[] pds;
-                try {
-                    pds = Introspector.getBeanInfo(object.getClass(), Object.class)
-                            .getPropertyDescriptors();
-                } catch (IntrospectionException e) {
-                    e.printStackTrace();
-                    return "ERR";
-                }
-                for (PropertyDescriptor pd : pds) {
-                    Method readMethod = pd.getReadMethod();
-                    if (readMethod != null) {
-                        Object value = null;
-                        boolean success = false;
-                        try {
-                            value = readMethod.invoke(object);
-                            success = true;
-                        } catch (Throwable t) {
-                            // best-effort only
-                        }
-                        if (success) {
-                            map.put(pd.getName(), value);
-                        }
-                    }
-                }
-                sb.append(dump(map, visited, indent));
-            } else {
-                // If this is not an entity object, simply render with toString().
-                return object.toString();
-            }
-        }
-        return sb.toString();
+    /**
+     * Write a dump of this object to the given output in a single pass.
+     * Containers nested more than {@code maxDepth} levels deep are written as
+     * "...", and output is cut off with "..." once {@code maxChars}
+     * characters have been written, which makes this safe to use for request
+     * logging.
+     */
+    public static void dump(Object object, Appendable out, int maxDepth, long maxChars) throws IOException {
+        new ObjectDumper(out, maxDepth, maxChars).write(object);
     }
 
     private static final int DATE_TIME_DELIMITATION_INDEX = 10;
@@ -335,6 +228,16 @@ public final class Util {
             throw new DateTimeParseException("ISO-8601 string is null.", "", 0);
         }
 
+        // The common shapes are handled in a single pass without exceptions;
+        // anything else goes through the java.time parsers below.
+        LocalDateTime parsed = Iso8601Parser.parse(string);
+        if (parsed != null) {
+            return parsed;
+        }
+        return parseISO8601Leniently(string);
+    }
+
+    private static LocalDateTime parseISO8601Leniently(String string) {
         // If the date-time is specified with a space separating the date and time,
         // convert the space to 'T' so that it is proper ISO-8601.  This tolerance is
         // needed to support PostgreSQL-style times.
@@ -348,8 +251,10 @@ public final class Util {
         // If the date-time is specified with a two-digit time zone offset instead of
         // an offset in the form [+-]HH:MM, then convert to the latter.  This tolerance
         // is needed to support PostgreSQL-style times.
+        // Only a time can carry an offset, so a bare date such as 2020-01-05 is
+        // left alone.
         int length = string.length();
-        if (length > 3) {
+        if (length > DATE_TIME_DELIMITATION_INDEX + 3) {
             char sign = string.charAt(length - 3);
             if (sign == '+' || sign == '-') {
                 char d1 = string.charAt(length - 2);
@@ -451,15 +356,20 @@ public final class Util {
         return order;
     }
 
+    /**
+     * Return the first address in the X-Forwarded-For header, or else the
+     * address the request came from. Clients can set the header themselves,
+     * so this is for logging only: to rate limit or authorize clients, use
+     * {@link HttpServletRequest#getRemoteAddr}, which honours the header only
+     * from trusted proxies when {@code server.use-forward-headers} is set.
+     */
     public static String getClientIpAddress(HttpServletRequest request) {
-        String ipAddress = request.getHeader("X-FORWARDED-FOR");
-        if (ipAddress != null) {
-            ipAddress = ipAddress.split(",")[0];
-        } else {
-            ipAddress = request.getRemoteAddr();
+        String forwardedFor = request.getHeader("X-FORWARDED-FOR");
+        if (forwardedFor == null) {
+            return request.getRemoteAddr();
         }
-
-        return ipAddress;
+        int comma = forwardedFor.indexOf(',');
+        return (comma < 0 ? forwardedFor : forwardedFor.substring(0, comma)).trim();
     }
 
 }
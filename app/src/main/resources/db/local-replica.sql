@@ -0,0 +1,4 @@
+-- Run by the local profile's replica on every new connection. The replica's
+-- pool connects on the first read-only transaction, after Hibernate has
+-- created the primary's schema.
+CREATE LINKED TABLE IF NOT EXISTS USERS('org.h2.Driver', 'jdbc:h2:mem:primary', 'sa', '', 'PUBLIC', 'USERS') READONLY;
@@ -0,0 +1,72 @@
+package app.dao;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routing of connections opened with explicit credentials.
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+    private ReadWriteRoutingDataSource dataSource;
+
+    @Before
+    public void setUp() throws SQLException {
+        primary = mockDataSource();
+        replica = mockDataSource();
+        ReadWriteRoutingDataSource.Replica replicaTarget = new ReadWriteRoutingDataSource.Replica(
+                "0", replica, () -> 0, new LongAdder());
+        dataSource = new ReadWriteRoutingDataSource(primary, Collections.singletonList(replicaTarget),
+                ReadWriteRoutingDataSource.Selection.ROUND_ROBIN, false, 1000, new LongAdder(), new LongAdder());
+    }
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    private static DataSource mockDataSource() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(dataSource.getConnection("user", "secret")).thenReturn(connection);
+        return dataSource;
+    }
+
+    @Test
+    public void passesCredentialsToThePrimaryForWrites() throws SQLException {
+        // Connections are fetched from the target at the first statement.
+        dataSource.getConnection("user", "secret").createStatement();
+        verify(primary).getConnection("user", "secret");
+        verify(replica, never()).getConnection("user", "secret");
+    }
+
+    @Test
+    public void passesCredentialsToAReplicaForReads() throws SQLException {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        dataSource.getConnection("user", "secret").createStatement();
+        verify(replica).getConnection("user", "secret");
+        verify(primary, never()).getConnection("user", "secret");
+    }
+
+} // class ReadWriteRoutingDataSourceTest
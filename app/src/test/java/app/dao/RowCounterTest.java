@@ -0,0 +1,132 @@
+package app.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.junit.Test;
+
+/**
+ * RowCounter against a simulated table, with transactions that commit while
+ * the table is being counted.
+ */
+public class RowCounterTest {
+
+    private final AtomicLong table = new AtomicLong();
+    private final RowCounter counter = new RowCounter();
+
+    /**
+     * Commit an insert of {@code rows} rows, reporting it as a DAO would.
+     */
+    private void commit(long rows) {
+        counter.committing();
+        table.addAndGet(rows);
+        counter.completed(rows, true);
+    }
+
+    @Test
+    public void countsTheTableOnceAndThenFollowsCommits() {
+        AtomicInteger counts = new AtomicInteger();
+        table.set(10);
+        LongSupplier countRows = () -> {
+            counts.incrementAndGet();
+            return table.get();
+        };
+        assertEquals(10, counter.get(countRows));
+        commit(3);
+        commit(-1);
+        assertEquals(12, counter.get(countRows));
+        assertEquals(1, counts.get());
+    }
+
+    @Test
+    public void keepsChangesCommittedBeforeTheFirstCount() {
+        commit(5);
+        commit(2);
+        assertEquals(7, counter.get(table::get));
+    }
+
+    @Test
+    public void keepsAChangeThatCommitsWhileTheTableIsCounted() {
+        table.set(10);
+        AtomicInteger attempts = new AtomicInteger();
+        // The count's snapshot is taken before the insert commits.
+        LongSupplier countRows = () -> {
+            long rows = table.get();
+            if (attempts.getAndIncrement() == 0) {
+                commit(1);
+            }
+            return rows;
+        };
+        assertEquals(11, counter.get(countRows));
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void doesNotCountAChangeTwiceThatCommitsWhileTheTableIsCounted() {
+        table.set(10);
+        AtomicInteger attempts = new AtomicInteger();
+        // The insert reaches the table before the count's snapshot, but is
+        // reported as committed only after.
+        LongSupplier countRows = () -> {
+            if (attempts.getAndIncrement() == 0) {
+                counter.committing();
+                table.incrementAndGet();
+                long rows = table.get();
+                counter.completed(1, true);
+                return rows;
+            }
+            return table.get();
+        };
+        assertEquals(11, counter.get(countRows));
+    }
+
+    @Test
+    public void reseedKeepsChangesThatCommitWhileItCounts() {
+        table.set(10);
+        assertEquals(10, counter.get(table::get));
+        // Rows written by another instance.
+        table.addAndGet(5);
+        AtomicInteger attempts = new AtomicInteger();
+        LongSupplier countRows = () -> {
+            long rows = table.get();
+            if (attempts.getAndIncrement() == 0) {
+                commit(1);
+            }
+            return rows;
+        };
+        assertTrue(counter.reseed(countRows));
+        assertEquals(16, counter.get(table::get));
+    }
+
+    @Test
+    public void reseedKeepsThePreviousCountWhileWritesKeepCommitting() {
+        table.set(10);
+        assertEquals(10, counter.get(table::get));
+        table.addAndGet(100);
+        LongSupplier countRows = () -> {
+            long rows = table.get();
+            commit(1);
+            return rows;
+        };
+        assertFalse(counter.reseed(countRows));
+        // The other instance's rows are missed until a reseed succeeds, but
+        // every change made here is still counted.
+        assertEquals(15, counter.get(table::get));
+        assertTrue(counter.reseed(table::get));
+        assertEquals(115, counter.get(table::get));
+    }
+
+    @Test
+    public void ignoresRolledBackChanges() {
+        assertEquals(0, counter.get(table::get));
+        counter.committing();
+        counter.completed(4, false);
+        assertEquals(0, counter.get(table::get));
+    }
+
+} // class RowCounterTest
@@ -0,0 +1,62 @@
+package app.dao;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import app.util.TextIndex;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Changes to the user search index reported out of commit order.
+ */
+public class UserSearchIndexTest {
+
+    private final UserSearchIndex index = new UserSearchIndex();
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(index, "mode", "memory");
+        index.completeRebuild(index.beginRebuild());
+    }
+
+    private int[] search(String query) {
+        return index.search(query, 0, 10);
+    }
+
+    @Test
+    public void ignoresAnUpdateOlderThanTheIndexedVersion() {
+        index.put(1, 0, "ann@example.com", "Ann");
+        index.put(1, 2, "ann@example.com", "Anne");
+        index.put(1, 1, "ann@example.com", "Annie");
+        assertArrayEquals(new int[] {1}, search("anne"));
+        assertArrayEquals(new int[0], search("annie"));
+    }
+
+    @Test
+    public void ignoresAnUpdateReportedAfterTheRemoval() {
+        index.put(1, 0, "ann@example.com", "Ann");
+        index.remove(1);
+        index.put(1, 1, "ann@example.com", "Anne");
+        assertArrayEquals(new int[0], search("ann"));
+    }
+
+    @Test
+    public void rebuildKeepsNewerChangesOverTheRowsItReads() {
+        TextIndex rebuilt = index.beginRebuild();
+        index.put(1, 3, "ann@example.com", "Anne");
+        index.remove(2);
+        // Rows read before those changes committed.
+        index.load(rebuilt, 1, 2, "ann@example.com", "Ann");
+        index.load(rebuilt, 2, 0, "bob@example.com", "Bob");
+        index.load(rebuilt, 3, 0, "cy@example.com", "Cy");
+        index.completeRebuild(rebuilt);
+        assertArrayEquals(new int[] {1}, search("anne"));
+        assertArrayEquals(new int[0], search("bob"));
+        assertArrayEquals(new int[] {3}, search("cy"));
+        index.put(1, 2, "ann@example.com", "Ann");
+        assertArrayEquals(new int[] {1}, search("anne"));
+    }
+
+} // class UserSearchIndexTest
@@ -0,0 +1,130 @@
+package app.limits;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import app.metrics.MetricsRegistry;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.apache.tomcat.jdbc.pool.PoolProperties;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.hibernate.exception.GenericJDBCException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.orm.hibernate5.HibernateJdbcException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * How the concurrency limit reacts to calls that fail for lack of
+ * connections, as they fail when connections are taken lazily.
+ */
+public class DaoConcurrencyLimitAspectTest {
+
+    private static final int INITIAL_LIMIT = 10;
+
+    private final DaoConcurrencyLimitAspect aspect = new DaoConcurrencyLimitAspect();
+    private org.apache.tomcat.jdbc.pool.DataSource pool;
+
+    @Before
+    public void setUp() throws SQLException {
+        ReflectionTestUtils.setField(aspect, "mode", "enforce");
+        ReflectionTestUtils.setField(aspect, "initialLimit", INITIAL_LIMIT);
+        ReflectionTestUtils.setField(aspect, "minLimit", 2);
+        ReflectionTestUtils.setField(aspect, "maxLimit", 20);
+        ReflectionTestUtils.setField(aspect, "bulkShare", 0.5);
+        ReflectionTestUtils.setField(aspect, "metricsRegistry", new MetricsRegistry());
+        aspect.init();
+
+        // A pool of one connection, which the test holds.
+        DataSource database = mock(DataSource.class);
+        when(database.getConnection()).thenReturn(mock(Connection.class));
+        PoolProperties properties = new PoolProperties();
+        properties.setDataSource(database);
+        properties.setInitialSize(0);
+        properties.setMinIdle(0);
+        properties.setMaxIdle(1);
+        properties.setMaxActive(1);
+        properties.setMaxWait(10);
+        pool = new org.apache.tomcat.jdbc.pool.DataSource(properties);
+        pool.getConnection();
+    }
+
+    @After
+    public void tearDown() {
+        pool.close(true);
+    }
+
+    private int getLimit() {
+        return ((AdaptiveConcurrencyLimit) ReflectionTestUtils.getField(aspect, "limit")).getLimit();
+    }
+
+    /**
+     * Run a DAO call that throws the given exception through the aspect.
+     */
+    private void call(Callable body, Throwable expected) throws Throwable {
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(Object.class.getMethod("toString"));
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getTarget()).thenReturn(new Object());
+        when(joinPoint.proceed()).then(invocation -> body.call());
+        try {
+            aspect.limit(joinPoint);
+            fail("expected " + expected);
+        } catch (Throwable e) {
+            if (expected != null) {
+                assertSame(expected, e);
+            }
+        }
+    }
+
+    private interface Callable {
+        Object call() throws Throwable;
+    }
+
+    @Test
+    public void shrinksWhenThePoolIsExhaustedAtTheFirstStatement() throws Throwable {
+        call(() -> {
+            try {
+                return pool.getConnection();
+            } catch (SQLException e) {
+                // As Hibernate and Spring report a connection that could
+                // not be had when preparing a statement.
+                throw new HibernateJdbcException(new GenericJDBCException("could not prepare statement", e));
+            }
+        }, null);
+        assertTrue(getLimit() < INITIAL_LIMIT);
+    }
+
+    @Test
+    public void shrinksWhenNoConnectionCanBeHad() throws Throwable {
+        CannotGetJdbcConnectionException e = new CannotGetJdbcConnectionException("no connection",
+                new SQLException("refused"));
+        call(() -> {
+            throw e;
+        }, e);
+        assertTrue(getLimit() < INITIAL_LIMIT);
+    }
+
+    @Test
+    public void keepsTheLimitWhenACallFailsForOtherReasons() throws Throwable {
+        DataIntegrityViolationException e = new DataIntegrityViolationException("duplicate email");
+        call(() -> {
+            throw e;
+        }, e);
+        assertEquals(INITIAL_LIMIT, getLimit());
+    }
+
+} // class DaoConcurrencyLimitAspectTest
@@ -0,0 +1,80 @@
+package app.limits;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import app.metrics.MetricsRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+
+/**
+ * Clients are told apart by the address the request came from.
+ */
+public class RateLimitInterceptorTest {
+
+    private static final int BURST = 3;
+
+    private final RateLimitInterceptor interceptor = new RateLimitInterceptor();
+    private HandlerMethod handler;
+
+    @RequestMapping(method = RequestMethod.PUT)
+    public void write() {
+    }
+
+    @Before
+    public void setUp() throws NoSuchMethodException {
+        ReflectionTestUtils.setField(interceptor, "mode", "enforce");
+        ReflectionTestUtils.setField(interceptor, "maxClients", 1000);
+        ReflectionTestUtils.setField(interceptor, "writePerSecond", 0.001);
+        ReflectionTestUtils.setField(interceptor, "writeBurst", BURST);
+        ReflectionTestUtils.setField(interceptor, "readPerSecond", 1.0);
+        ReflectionTestUtils.setField(interceptor, "readBurst", 1);
+        ReflectionTestUtils.setField(interceptor, "scanPerSecond", 1.0);
+        ReflectionTestUtils.setField(interceptor, "scanBurst", 1);
+        ReflectionTestUtils.setField(interceptor, "bulkPerSecond", 1.0);
+        ReflectionTestUtils.setField(interceptor, "bulkBurst", 1);
+        ReflectionTestUtils.setField(interceptor, "metricsRegistry", new MetricsRegistry());
+        interceptor.init();
+        handler = new HandlerMethod(this, getClass().getMethod("write"));
+    }
+
+    private boolean admit(String remoteAddress, String forwardedFor) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/user");
+        request.setRemoteAddr(remoteAddress);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean admitted = interceptor.preHandle(request, response, handler);
+        if (!admitted) {
+            assertEquals(429, response.getStatus());
+        }
+        return admitted;
+    }
+
+    @Test
+    public void limitsAClientThatSendsANewForwardedForOnEveryRequest() throws Exception {
+        for (int i = 0; i < BURST; i++) {
+            assertTrue(admit("203.0.113.7", "198.51.100." + i));
+        }
+        assertFalse(admit("203.0.113.7", "198.51.100.99"));
+    }
+
+    @Test
+    public void limitsEachRemoteAddressSeparately() throws Exception {
+        for (int i = 0; i < BURST; i++) {
+            assertTrue(admit("203.0.113.7", null));
+        }
+        assertFalse(admit("203.0.113.7", null));
+        assertTrue(admit("203.0.113.8", null));
+    }
+
+} // class RateLimitInterceptorTest
@@ -0,0 +1,292 @@
+package app.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Util.dateTimeFromISO8601 against the implementation it replaced, which
+ * tried the java.time parsers in turn. Both must accept the same inputs and
+ * return the same values, except that bare dates, which the old
+ * implementation always rejected, now parse to midnight.
+ */
+public class DateTimeFromISO8601Test {
+
+    private static final int GENERATED_INPUTS = 200000;
+
+    private static final String[] EDGE_CASES = {
+        "2017-05-14T10:15",
+        "2017-05-14T10:15:30",
+        "2017-05-14T10:15:30.123456789",
+        "2017-05-14T10:15:30.1234567891",
+        "2017-05-14T10:15:30.",
+        "2017-05-14 10:15:30.5",
+        "2017-05-14T10:15:30Z",
+        "2017-05-14T10:15:30.123-05",
+        "2017-05-14T10:15-05",
+        "2017-05-14 23:59:59+14:00",
+        "2017-05-14T00:00:00-18:00",
+        "2017-05-14T00:00:00+18:00:01",
+        "2017-05-14T10:15:30+05:30:15",
+        "2017-05-14T10:15:30-00",
+        "2017-05-14T10:15:30+0530",
+        "2016-02-29T10:15:30",
+        "2016-02-29T10:15:30+01:00[Europe/Paris]",
+        "2017-05-14T10:15:30[Europe/Paris]",
+        "2017-05-14t10:15:30z",
+        "2017-02-29T10:15:30",
+        "2017-04-31T10:15:30",
+        "2017-05-14T24:00:00",
+        "2017-05-14T23:60:00",
+        "2017-05-14T23:59:60",
+        "2017-05-14T10:15:30+19:00",
+        "2017-05-14T10:15:30+05:60",
+        "2017-05-14T10:15:30+05:",
+        "2017-05-14T10",
+        "2017-05-14T",
+        "2017-05-14-05",
+        "2017-5-14",
+        "+10000-05-14T10:15:30",
+        "0000-01-01T00:00:00+01:00",
+        "9999-12-31T23:59:59-18:00",
+        "",
+        "-05",
+        "not a date"
+    };
+
+    @Test
+    public void agreesWithPreviousImplementationOnEdgeCases() {
+        for (String input : EDGE_CASES) {
+            assertAgrees(input);
+        }
+    }
+
+    @Test
+    public void rejectsOutOfRangeFields() {
+        for (String input : new String[] {
+                "2017-02-29T10:15:30", "2017-05-14T24:00:00", "2017-05-14T10:15:30+19:00"}) {
+            assertNull(input, parse(input));
+            assertNull(input, parsePreviously(input));
+        }
+    }
+
+    @Test
+    public void parsesBareDatesToMidnight() {
+        assertNull(parsePreviously("2020-01-05"));
+        assertEquals(LocalDateTime.of(2020, 1, 5, 0, 0), parse("2020-01-05"));
+        assertNull(parse("2020-02-30"));
+    }
+
+    @Test
+    public void parsesCommonShapesInOnePass() {
+        for (String input : new String[] {
+                "2017-05-14", "2017-05-14T10:15:30", "2017-05-14 10:15:30.123Z", "2017-05-14T10:15:30+02",
+                "2017-05-14T10:15:30-05:30"}) {
+            assertNotNull(input, Iso8601Parser.parse(input));
+        }
+    }
+
+    @Test
+    public void agreesWithPreviousImplementationOnGeneratedInputs() {
+        Random random = new Random(8601);
+        int accepted = 0;
+        for (int i = 0; i < GENERATED_INPUTS; i++) {
+            String input = generate(random);
+            if (assertAgrees(input)) {
+                accepted++;
+            }
+        }
+        // Most inputs should be well formed, or the comparison says little.
+        assertTrue("only " + accepted + " inputs accepted", accepted > GENERATED_INPUTS / 4);
+    }
+
+    /**
+     * @return whether the input was accepted.
+     */
+    private static boolean assertAgrees(String input) {
+        LocalDateTime actual = parse(input);
+        if (isBareDate(input)) {
+            assertNull(input, parsePreviously(input));
+            assertEquals(input, LocalDate.parse(input).atStartOfDay(), actual);
+        } else {
+            assertEquals(input, parsePreviously(input), actual);
+        }
+        return actual != null;
+    }
+
+    private static boolean isBareDate(String input) {
+        try {
+            LocalDate.parse(input);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * A date-time in one of the shapes either implementation handles, with
+     * each field occasionally out of range or malformed.
+     */
+    private static String generate(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int yearShape = random.nextInt(40);
+        if (yearShape == 0) {
+            sb.append('+').append(10000 + random.nextInt(90000));
+        } else if (yearShape == 1) {
+            sb.append(random.nextInt(1000));
+        } else if (yearShape < 5) {
+            pad(sb, random.nextInt(10000), 4);
+        } else {
+            pad(sb, 1900 + random.nextInt(250), 4);
+        }
+        sb.append('-');
+        field(sb, random, 1, 12);
+        sb.append('-');
+        field(sb, random, 1, 31);
+        if (random.nextInt(8) == 0) {
+            return sb.toString();
+        }
+
+        sb.append(pick(random, "T", "T", "T", " ", " ", "t", "X", ""));
+        field(sb, random, 0, 23);
+        sb.append(':');
+        field(sb, random, 0, 59);
+        if (random.nextInt(4) != 0) {
+            sb.append(':');
+            field(sb, random, 0, 59);
+            if (random.nextInt(3) == 0) {
+                sb.append('.');
+                int digits = random.nextInt(20) == 0 ? random.nextInt(12) : 1 + random.nextInt(9);
+                for (int i = 0; i < digits; i++) {
+                    sb.append((char) ('0' + random.nextInt(10)));
+                }
+            }
+        }
+
+        switch (random.nextInt(12)) {
+            case 0:
+            case 1:
+            case 2:
+                break;
+            case 3:
+                sb.append(pick(random, "Z", "Z", "z"));
+                break;
+            case 4:
+                sb.append(pick(random, "[Europe/Paris]", "+01:00[Europe/Paris]", "Z[UTC]", "+05:30[Asia/Kolkata]"));
+                break;
+            default:
+                sb.append(random.nextBoolean() ? '+' : '-');
+                field(sb, random, 0, 18);
+                int shape = random.nextInt(4);
+                if (shape == 1) {
+                    // Compact offsets such as +0530 are not accepted by either.
+                    field(sb, random, 0, 59);
+                } else if (shape >= 2) {
+                    sb.append(':');
+                    field(sb, random, 0, 59);
+                    if (shape == 3 && random.nextBoolean()) {
+                        sb.append(':');
+                        field(sb, random, 0, 59);
+                    }
+                }
+        }
+
+        if (random.nextInt(50) == 0) {
+            sb.setCharAt(random.nextInt(sb.length()), pick(random, "-", ":", "T", " ", "0", "9", "Z", "+", ".").charAt(0));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Append a two-digit field, usually within [min, max] and sometimes just
+     * outside it or a single digit.
+     */
+    private static void field(StringBuilder sb, Random random, int min, int max) {
+        int shape = random.nextInt(30);
+        if (shape == 0) {
+            sb.append(random.nextInt(10));
+        } else if (shape == 1) {
+            pad(sb, max + 1, 2);
+        } else if (shape == 2) {
+            pad(sb, random.nextInt(100), 2);
+        } else if (shape < 6) {
+            pad(sb, random.nextBoolean() ? min : max, 2);
+        } else {
+            pad(sb, min + random.nextInt(max - min + 1), 2);
+        }
+    }
+
+    private static void pad(StringBuilder sb, int value, int width) {
+        String digits = Integer.toString(value);
+        for (int i = digits.length(); i < width; i++) {
+            sb.append('0');
+        }
+        sb.append(digits);
+    }
+
+    private static String pick(Random random, String... choices) {
+        return choices[random.nextInt(choices.length)];
+    }
+
+    private static LocalDateTime parse(String input) {
+        try {
+            return Util.dateTimeFromISO8601(input);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static LocalDateTime parsePreviously(String input) {
+        try {
+            return previousDateTimeFromISO8601(input);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Util.dateTimeFromISO8601 as it was before the single-pass parser.
+     */
+    private static LocalDateTime previousDateTimeFromISO8601(String string) {
+        if (string.length() > 10 && string.charAt(10) == ' ') {
+            char[] characters = string.toCharArray();
+            characters[10] = 'T';
+            string = new String(characters);
+        }
+
+        int length = string.length();
+        if (length > 3) {
+            char sign = string.charAt(length - 3);
+            if (sign == '+' || sign == '-') {
+                char d1 = string.charAt(length - 2);
+                char d2 = string.charAt(length - 1);
+                if (d1 >= '0' && d1 <= '9' && d2 >= '0' && d2 <= '9') {
+                    string = string + ":00";
+                }
+            }
+        }
+
+        try {
+            return LocalDateTime.parse(string);
+        } catch (DateTimeParseException e1) {
+            try {
+                return LocalDateTime.of(LocalDate.parse(string), LocalTime.MIDNIGHT);
+            } catch (DateTimeParseException e2) {
+                ZonedDateTime zonedDateTime = ZonedDateTime.parse(string);
+                return LocalDateTime.ofInstant(zonedDateTime.toInstant(), ZoneOffset.UTC);
+            }
+        }
+    }
+
+} // class DateTimeFromISO8601Test
@@ -0,0 +1,297 @@
+package app.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JsonPatch against the examples of RFC 6902 Appendix A and RFC 6901
+ * section 5, and the edge cases around them. JSON is written with single
+ * quotes for readability.
+ */
+public class JsonPatchTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(JsonParser.Feature.ALLOW_SINGLE_QUOTES, true);
+
+    private static JsonNode json(String json) {
+        try {
+            return MAPPER.readTree(json);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(json, e);
+        }
+    }
+
+    private static void assertPatched(String document, String patch, String expected) {
+        assertEquals(json(expected), JsonPatch.apply(json(patch), json(document)));
+    }
+
+    private static void assertFails(Class<? extends RuntimeException> type, String document, String patch) {
+        JsonNode target = json(document);
+        try {
+            JsonPatch.apply(json(patch), target);
+            fail("patch applied: " + patch);
+        } catch (RuntimeException e) {
+            assertEquals(patch, type, e.getClass());
+        }
+        assertEquals("target modified", json(document), target);
+    }
+
+    // RFC 6902 Appendix A.
+
+    @Test
+    public void addsAnObjectMember() {
+        assertPatched("{'foo':'bar'}",
+                "[{'op':'add','path':'/baz','value':'qux'}]",
+                "{'baz':'qux','foo':'bar'}");
+    }
+
+    @Test
+    public void addsAnArrayElement() {
+        assertPatched("{'foo':['bar','baz']}",
+                "[{'op':'add','path':'/foo/1','value':'qux'}]",
+                "{'foo':['bar','qux','baz']}");
+    }
+
+    @Test
+    public void removesAnObjectMember() {
+        assertPatched("{'baz':'qux','foo':'bar'}",
+                "[{'op':'remove','path':'/baz'}]",
+                "{'foo':'bar'}");
+    }
+
+    @Test
+    public void removesAnArrayElement() {
+        assertPatched("{'foo':['bar','qux','baz']}",
+                "[{'op':'remove','path':'/foo/1'}]",
+                "{'foo':['bar','baz']}");
+    }
+
+    @Test
+    public void replacesAValue() {
+        assertPatched("{'baz':'qux','foo':'bar'}",
+                "[{'op':'replace','path':'/baz','value':'boo'}]",
+                "{'baz':'boo','foo':'bar'}");
+    }
+
+    @Test
+    public void movesAValue() {
+        assertPatched("{'foo':{'bar':'baz','waldo':'fred'},'qux':{'corge':'grault'}}",
+                "[{'op':'move','from':'/foo/waldo','path':'/qux/thud'}]",
+                "{'foo':{'bar':'baz'},'qux':{'corge':'grault','thud':'fred'}}");
+    }
+
+    @Test
+    public void movesAnArrayElement() {
+        assertPatched("{'foo':['all','grass','cows','eat']}",
+                "[{'op':'move','from':'/foo/1','path':'/foo/3'}]",
+                "{'foo':['all','cows','eat','grass']}");
+    }
+
+    @Test
+    public void testsValues() {
+        assertPatched("{'baz':'qux','foo':['a',2,'c']}",
+                "[{'op':'test','path':'/baz','value':'qux'},{'op':'test','path':'/foo/1','value':2}]",
+                "{'baz':'qux','foo':['a',2,'c']}");
+    }
+
+    @Test
+    public void failsATestOfADifferentValue() {
+        assertFails(IllegalStateException.class, "{'baz':'qux'}",
+                "[{'op':'test','path':'/baz','value':'bar'}]");
+    }
+
+    @Test
+    public void addsANestedMemberObject() {
+        assertPatched("{'foo':'bar'}",
+                "[{'op':'add','path':'/child','value':{'grandchild':{}}}]",
+                "{'foo':'bar','child':{'grandchild':{}}}");
+    }
+
+    @Test
+    public void ignoresUnrecognizedElements() {
+        assertPatched("{'foo':'bar'}",
+                "[{'op':'add','path':'/baz','value':'qux','xyz':123}]",
+                "{'foo':'bar','baz':'qux'}");
+    }
+
+    @Test
+    public void failsToAddToANonexistentTarget() {
+        assertFails(IllegalStateException.class, "{'foo':'bar'}",
+                "[{'op':'add','path':'/baz/bat','value':'qux'}]");
+    }
+
+    // A.13, a patch with two "op" members, is rejected, or not, by the JSON
+    // parser before JsonPatch sees the tree.
+
+    @Test
+    public void unescapesTildeBeforeSlash() {
+        assertPatched("{'/':9,'~1':10}",
+                "[{'op':'test','path':'/~01','value':10}]",
+                "{'/':9,'~1':10}");
+    }
+
+    @Test
+    public void failsATestOfAStringAgainstANumber() {
+        assertFails(IllegalStateException.class, "{'/':9,'~1':10}",
+                "[{'op':'test','path':'/~01','value':'10'}]");
+    }
+
+    @Test
+    public void addsAnArrayValue() {
+        assertPatched("{'foo':['bar']}",
+                "[{'op':'add','path':'/foo/-','value':['abc','def']}]",
+                "{'foo':['bar',['abc','def']]}");
+    }
+
+    // Edge cases.
+
+    @Test
+    public void comparesNumbersByValue() {
+        assertPatched("{'id':1,'score':2.50,'count':100}",
+                "[{'op':'test','path':'/id','value':1.0},"
+                        + "{'op':'test','path':'/score','value':2.5},"
+                        + "{'op':'test','path':'/count','value':1e2}]",
+                "{'id':1,'score':2.50,'count':100}");
+        assertFails(IllegalStateException.class, "{'id':1}",
+                "[{'op':'test','path':'/id','value':1.5}]");
+    }
+
+    @Test
+    public void comparesNumbersByValueInsideContainers() {
+        assertPatched("{'a':{'b':[1,{'c':2}]}}",
+                "[{'op':'test','path':'/a','value':{'b':[1.0,{'c':2.0}]}}]",
+                "{'a':{'b':[1,{'c':2}]}}");
+        assertFails(IllegalStateException.class, "{'a':[1,2]}",
+                "[{'op':'test','path':'/a','value':[2,1]}]");
+    }
+
+    @Test
+    public void testsTheWholeDocumentAndNull() {
+        assertPatched("{'a':null}",
+                "[{'op':'test','path':'','value':{'a':null}},{'op':'test','path':'/a','value':null}]",
+                "{'a':null}");
+    }
+
+    @Test
+    public void failsATestOfAMissingValue() {
+        assertFails(IllegalStateException.class, "{'a':1}",
+                "[{'op':'test','path':'/b','value':1}]");
+    }
+
+    @Test
+    public void escapesSlashAndTildeInPaths() {
+        assertPatched("{}",
+                "[{'op':'add','path':'/a~1b','value':1},{'op':'add','path':'/m~0n','value':2}]",
+                "{'a/b':1,'m~n':2}");
+        assertFails(IllegalArgumentException.class, "{}",
+                "[{'op':'add','path':'/a~2','value':1}]");
+        assertFails(IllegalArgumentException.class, "{}",
+                "[{'op':'add','path':'/a~','value':1}]");
+    }
+
+    @Test
+    public void appendsOnlyWithDash() {
+        assertPatched("[1,2]", "[{'op':'add','path':'/-','value':3}]", "[1,2,3]");
+        assertPatched("[1,2]", "[{'op':'add','path':'/2','value':3}]", "[1,2,3]");
+        assertFails(IllegalStateException.class, "[1,2]", "[{'op':'remove','path':'/-'}]");
+        assertFails(IllegalStateException.class, "[1,2]", "[{'op':'replace','path':'/-','value':3}]");
+        assertFails(IllegalStateException.class, "[1,2]", "[{'op':'test','path':'/-','value':2}]");
+    }
+
+    @Test
+    public void rejectsInvalidArrayIndexes() {
+        assertFails(IllegalStateException.class, "[1,2]", "[{'op':'add','path':'/3','value':3}]");
+        assertFails(IllegalStateException.class, "[1,2]", "[{'op':'remove','path':'/2'}]");
+        assertFails(IllegalStateException.class, "[1,2]", "[{'op':'remove','path':'/01'}]");
+        assertFails(IllegalStateException.class, "[1,2]", "[{'op':'remove','path':'/-1'}]");
+        assertFails(IllegalStateException.class, "[1,2]", "[{'op':'remove','path':'/+1'}]");
+    }
+
+    @Test
+    public void failsToMoveAValueIntoItself() {
+        assertFails(IllegalStateException.class, "{'a':{'b':{}}}",
+                "[{'op':'move','from':'/a','path':'/a/b/c'}]");
+    }
+
+    @Test
+    public void movesAValueOntoItselfOrASibling() {
+        assertPatched("{'a':{'b':1}}", "[{'op':'move','from':'/a','path':'/a'}]", "{'a':{'b':1}}");
+        // "/ab" starts with "/a" as a string but not as a path.
+        assertPatched("{'a':1}", "[{'op':'move','from':'/a','path':'/ab'}]", "{'ab':1}");
+    }
+
+    @Test
+    public void copiesWithoutSharing() {
+        assertPatched("{'a':{'b':1}}",
+                "[{'op':'copy','from':'/a','path':'/c'},{'op':'replace','path':'/c/b','value':2}]",
+                "{'a':{'b':1},'c':{'b':2}}");
+    }
+
+    @Test
+    public void replacesTheWholeDocument() {
+        assertPatched("{'a':1}", "[{'op':'replace','path':'','value':[1]}]", "[1]");
+    }
+
+    @Test
+    public void failsToReplaceOrRemoveAMissingMember() {
+        assertFails(IllegalStateException.class, "{'a':1}", "[{'op':'replace','path':'/b','value':2}]");
+        assertFails(IllegalStateException.class, "{'a':1}", "[{'op':'remove','path':'/b'}]");
+        assertFails(IllegalStateException.class, "{'a':1}", "[{'op':'remove','path':''}]");
+    }
+
+    @Test
+    public void appliesOperationsInOrderAndLeavesTheTargetAlone() {
+        JsonNode target = json("{'a':1}");
+        JsonNode patched = JsonPatch.apply(
+                json("[{'op':'add','path':'/b','value':2},{'op':'test','path':'/b','value':2},"
+                        + "{'op':'remove','path':'/a'}]"),
+                target);
+        assertEquals(json("{'b':2}"), patched);
+        assertEquals(json("{'a':1}"), target);
+        // A later failure leaves the target as it was too.
+        assertFails(IllegalStateException.class, "{'a':1}",
+                "[{'op':'remove','path':'/a'},{'op':'test','path':'/a','value':1}]");
+    }
+
+    @Test
+    public void rejectsMalformedPatches() {
+        assertFails(IllegalArgumentException.class, "{}", "{'op':'add','path':'/a','value':1}");
+        assertFails(IllegalArgumentException.class, "{}", "[1]");
+        assertFails(IllegalArgumentException.class, "{}", "[{'path':'/a','value':1}]");
+        assertFails(IllegalArgumentException.class, "{}", "[{'op':'add','value':1}]");
+        assertFails(IllegalArgumentException.class, "{}", "[{'op':'add','path':'/a'}]");
+        assertFails(IllegalArgumentException.class, "{}", "[{'op':'move','path':'/a'}]");
+        assertFails(IllegalArgumentException.class, "{}", "[{'op':'frobnicate','path':'/a'}]");
+        assertFails(IllegalArgumentException.class, "{}", "[{'op':'add','path':'a','value':1}]");
+    }
+
+    // RFC 6901 section 5.
+
+    @Test
+    public void parsesPointers() {
+        assertEquals(Collections.emptyList(), JsonPatch.parsePointer(""));
+        assertEquals(Arrays.asList("foo"), JsonPatch.parsePointer("/foo"));
+        assertEquals(Arrays.asList("foo", "0"), JsonPatch.parsePointer("/foo/0"));
+        assertEquals(Arrays.asList(""), JsonPatch.parsePointer("/"));
+        assertEquals(Arrays.asList("a/b"), JsonPatch.parsePointer("/a~1b"));
+        assertEquals(Arrays.asList("c%d"), JsonPatch.parsePointer("/c%d"));
+        assertEquals(Arrays.asList("e^f"), JsonPatch.parsePointer("/e^f"));
+        assertEquals(Arrays.asList("g|h"), JsonPatch.parsePointer("/g|h"));
+        assertEquals(Arrays.asList("i\\j"), JsonPatch.parsePointer("/i\\j"));
+        assertEquals(Arrays.asList("k\"l"), JsonPatch.parsePointer("/k\"l"));
+        assertEquals(Arrays.asList(" "), JsonPatch.parsePointer("/ "));
+        assertEquals(Arrays.asList("m~n"), JsonPatch.parsePointer("/m~0n"));
+        assertEquals(Arrays.asList("", ""), JsonPatch.parsePointer("//"));
+    }
+
+} // class JsonPatchTest
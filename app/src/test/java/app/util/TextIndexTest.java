@@ -0,0 +1,244 @@
+package app.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * TextIndex ranking and paging, and a comparison against a scan of every
+ * document over generated data.
+ */
+public class TextIndexTest {
+
+    private static final int DOCUMENTS = 2_000;
+    private static final int QUERIES = 2_000;
+
+    private static TextIndex index(String... pairs) {
+        TextIndex index = new TextIndex();
+        for (int i = 0; i < pairs.length; i += 2) {
+            index.put(i / 2 + 1, pairs[i], pairs[i + 1]);
+        }
+        return index;
+    }
+
+    @Test
+    public void normalizesByTrimmingAndLowerCasing() {
+        assertEquals("ann lee", TextIndex.normalize("  Ann LEE "));
+        assertNull(TextIndex.normalize(null));
+    }
+
+    @Test
+    public void ranksExactThenPrefixThenSubstringMatches() {
+        TextIndex index = index(
+                "rosanna@example.com", "Rosanna Kim",    // 1: contains "ann"
+                "ann@example.com", "Ann Lee",            // 2: word equal to "ann"
+                "annabel@example.com", "Annabel Ng",     // 3: word starting with "ann"
+                "bob@example.com", "Bob Ray",            // 4: no match
+                "anna@example.com", "Anna Diaz");        // 5: word starting with "ann"
+        // Prefix matches are ordered by the word they match: "anna" before
+        // "annabel".
+        assertArrayEquals(new int[] {2, 5, 3, 1}, index.search("ANN", 0, 10));
+    }
+
+    @Test
+    public void ordersMatchesOfTheSameRankById() {
+        TextIndex index = new TextIndex();
+        index.put(30, "lee", null);
+        index.put(10, "lee", null);
+        index.put(20, "lee", null);
+        assertArrayEquals(new int[] {10, 20, 30}, index.search("lee", 0, 10));
+    }
+
+    @Test
+    public void skipsSubstringMatchingForShortQueries() {
+        TextIndex index = index("xann", null, "an", null);
+        assertArrayEquals(new int[] {2}, index.search("an", 0, 10));
+        assertArrayEquals(new int[] {1}, index.search("ann", 0, 10));
+    }
+
+    @Test
+    public void checksTrigramCandidatesAgainstTheText() {
+        // Both contain the trigrams of "abcd", but only the first contains it.
+        TextIndex index = index("xabcdx", null, "abc bcd", null);
+        assertArrayEquals(new int[] {1}, index.search("abcd", 0, 10));
+    }
+
+    @Test
+    public void pagesWithOffsetAndLimit() {
+        TextIndex index = new TextIndex();
+        for (int id = 1; id <= 10; id++) {
+            index.put(id, "user" + id, null);
+        }
+        int[] all = index.search("user", 0, 100);
+        assertEquals(10, all.length);
+        assertArrayEquals(Arrays.copyOfRange(all, 3, 7), index.search("user", 3, 4));
+        assertArrayEquals(Arrays.copyOfRange(all, 8, 10), index.search("user", 8, 4));
+        assertEquals(0, index.search("user", 10, 4).length);
+        assertEquals(0, index.search("user", 0, 0).length);
+    }
+
+    @Test
+    public void answersEmptyQueriesWithNothing() {
+        TextIndex index = index("a", "b");
+        assertEquals(0, index.search("", 0, 10).length);
+        assertEquals(0, index.search("  ", 0, 10).length);
+        assertEquals(0, index.search(null, 0, 10).length);
+    }
+
+    @Test
+    public void replacesAndRemovesDocuments() {
+        TextIndex index = index("old@example.com", "Old Name");
+        index.put(1, "new@example.com", "New Name");
+        assertEquals(0, index.search("old", 0, 10).length);
+        assertArrayEquals(new int[] {1}, index.search("new", 0, 10));
+        assertArrayEquals(new String[] {"new@example.com", "new name"}, index.get(1));
+
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        assertNull(index.get(1));
+        assertEquals(0, index.search("new", 0, 10).length);
+        assertEquals(0, index.size());
+        assertEquals(0, index.getTermCount());
+        assertEquals(0, index.getTrigramCount());
+    }
+
+    @Test
+    public void allowsNullFields() {
+        TextIndex index = new TextIndex();
+        index.put(1, null, "Ann");
+        index.put(2, "ann@example.com", null);
+        assertArrayEquals(new int[] {1, 2}, index.search("ann", 0, 10));
+        assertTrue(index.remove(1));
+        assertTrue(index.remove(2));
+        assertEquals(0, index.getTermCount());
+    }
+
+    @Test
+    public void countsDocumentsTermsAndTrigrams() {
+        TextIndex index = new TextIndex();
+        index.put(1, "ab cd");
+        // Terms "ab cd", "ab" and "cd"; trigrams "ab ", "b c" and " cd".
+        assertEquals(1, index.size());
+        assertEquals(3, index.getTermCount());
+        assertEquals(3, index.getTrigramCount());
+    }
+
+    @Test
+    public void matchesAScanOfEveryDocument() {
+        Random random = new Random(3);
+        TextIndex index = new TextIndex();
+        Map<Integer, String[]> documents = new HashMap<>();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            // Reuse ids so that documents are replaced and removed as well.
+            int id = random.nextInt(DOCUMENTS / 2);
+            if (random.nextInt(10) == 0) {
+                assertEquals(documents.remove(id) != null, index.remove(id));
+            } else {
+                String[] fields = {text(random), random.nextInt(5) == 0 ? null : text(random)};
+                index.put(id, fields);
+                documents.put(id, fields);
+            }
+        }
+        assertEquals(documents.size(), index.size());
+        for (int i = 0; i < QUERIES; i++) {
+            String query = text(random);
+            if (random.nextBoolean()) {
+                query = query.substring(0, Math.min(query.length(), 1 + random.nextInt(3)));
+            }
+            int[] expected = scan(documents, query);
+            int offset = random.nextInt(5);
+            int limit = 1 + random.nextInt(20);
+            int[] page = offset >= expected.length ? new int[0]
+                    : Arrays.copyOfRange(expected, offset, Math.min(expected.length, offset + limit));
+            assertArrayEquals(query + " " + offset + " " + limit, page, index.search(query, offset, limit));
+        }
+    }
+
+    /**
+     * Return short text from a small alphabet, so that queries often match.
+     */
+    private static String text(Random random) {
+        String alphabet = "abcAB .-";
+        StringBuilder text = new StringBuilder();
+        int length = 1 + random.nextInt(8);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Rank every matching document as documented for TextIndex.search.
+     */
+    private static int[] scan(Map<Integer, String[]> documents, String query) {
+        String q = TextIndex.normalize(query);
+        if (q.isEmpty()) {
+            return new int[0];
+        }
+        List<Object[]> matches = new ArrayList<>();
+        for (Map.Entry<Integer, String[]> document : documents.entrySet()) {
+            int rank = 3;
+            String prefixed = null;
+            for (String term : terms(document.getValue())) {
+                if (term.equals(q)) {
+                    rank = 0;
+                } else if (term.startsWith(q) && rank > 0) {
+                    rank = 1;
+                    prefixed = prefixed == null || term.compareTo(prefixed) < 0 ? term : prefixed;
+                }
+            }
+            if (rank == 3 && q.length() >= 3) {
+                for (String field : document.getValue()) {
+                    if (field != null && TextIndex.normalize(field).contains(q)) {
+                        rank = 2;
+                    }
+                }
+            }
+            if (rank < 3) {
+                matches.add(new Object[] {rank, rank == 1 ? prefixed : "", document.getKey()});
+            }
+        }
+        matches.sort(Comparator.<Object[], Integer>comparing(m -> (Integer) m[0])
+                .thenComparing(m -> (String) m[1])
+                .thenComparing(m -> (Integer) m[2]));
+        int[] ids = new int[matches.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (Integer) matches.get(i)[2];
+        }
+        return ids;
+    }
+
+    /**
+     * Each non-empty field and each run of letters and digits in it.
+     */
+    private static TreeSet<String> terms(String[] fields) {
+        TreeSet<String> terms = new TreeSet<>();
+        for (String field : fields) {
+            String normalized = TextIndex.normalize(field);
+            if (normalized == null || normalized.isEmpty()) {
+                continue;
+            }
+            terms.add(normalized);
+            for (String word : normalized.split("[^\\p{L}\\p{Nd}]+")) {
+                if (!word.isEmpty()) {
+                    terms.add(word);
+                }
+            }
+        }
+        return terms;
+    }
+
+} // class TextIndexTest
@@ -0,0 +1,63 @@
+package app.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the benchmarks with JMH's usual command line, except that results are
+ * always written to a file: as JSON to jmh-result.json unless another format
+ * or file is given with -rf and -rff.
+ *
+ * On Java 9 and later the forked JVMs also open java.lang to Spring's CGLIB
+ * proxies, as the application jar's manifest does when run with java -jar.
+ */
+public final class BenchmarkMain {
+
+    private static final String ADD_OPENS = "--add-opens=java.base/java.lang=ALL-UNNAMED";
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine;
+        try {
+            commandLine = new CommandLineOptions(args);
+        } catch (CommandLineOptionException e) {
+            System.err.println("Error parsing command line:");
+            System.err.println(" " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        if (commandLine.shouldList() || commandLine.shouldListWithParams()
+                || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!System.getProperty("java.specification.version").startsWith("1.")) {
+            List<String> jvmArgs = new ArrayList<String>();
+            if (commandLine.getJvmArgsPrepend().hasValue()) {
+                jvmArgs.addAll(commandLine.getJvmArgsPrepend().get());
+            }
+            jvmArgs.add(ADD_OPENS);
+            options.jvmArgsPrepend(jvmArgs.toArray(new String[jvmArgs.size()]));
+        }
+        new Runner(options.build()).run();
+    }
+
+} // class BenchmarkMain
@@ -0,0 +1,52 @@
+package app.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.limits.AdaptiveConcurrencyLimit;
+
+/**
+ * Admitting, releasing and sampling one DAO call, from as many threads as
+ * there are processors, at the default limits. This is what the concurrency
+ * limit adds to every DAO call that is admitted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(Threads.MAX)
+@Fork(1)
+public class ConcurrencyLimitBenchmark {
+
+    private AdaptiveConcurrencyLimit limit;
+
+    @Setup
+    public void setUp() {
+        limit = new AdaptiveConcurrencyLimit(10, 2, 20);
+    }
+
+    @Benchmark
+    public int call() {
+        long start = System.nanoTime();
+        int inFlight = limit.tryAcquire(1.0);
+        if (inFlight < 0) {
+            return inFlight;
+        }
+        limit.release();
+        limit.sample(System.nanoTime() - start, inFlight);
+        return inFlight;
+    }
+
+} // class ConcurrencyLimitBenchmark
@@ -0,0 +1,101 @@
+package app.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import app.dao.KeysetPage;
+import app.dao.UserDao;
+import app.models.User;
+
+/**
+ * AbstractDao reads against an embedded H2 database seeded with a fixed
+ * number of users. Single-entity reads, by id or by email, are served by the
+ * second-level cache once warm, as they are in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DaoReadBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"10000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private UserDao userDao;
+    private int[] ids;
+    private int secondToLastPageId;
+
+    @Setup
+    public void setUp() {
+        context = EmbeddedApplication.start("reads");
+        userDao = context.getBean(UserDao.class);
+        List<User> users = new ArrayList<User>(rows);
+        for (int i = 0; i < rows; i++) {
+            users.add(new User("user" + i + "@example.com", "User " + i));
+        }
+        userDao.saveAll(users);
+        ids = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            ids[i] = users.get(i).getId();
+        }
+        secondToLastPageId = ids[rows - PAGE_SIZE - 1];
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public User get() {
+        return userDao.get(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public User getByEmail() {
+        return userDao.getByEmail("user" + ThreadLocalRandom.current().nextInt(rows) + "@example.com");
+    }
+
+    @Benchmark
+    public Iterable<User> getAll() {
+        return userDao.getAll();
+    }
+
+    // getAll(int, int) takes a 1-based page number rather than a row offset.
+    @Benchmark
+    public Iterable<User> getAllFirstPage() {
+        return userDao.getAll(1, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Iterable<User> getAllLastPage() {
+        return userDao.getAll(rows / PAGE_SIZE, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public KeysetPage<User> getPageAfterLastPage() {
+        return userDao.getPageAfter(secondToLastPageId, PAGE_SIZE);
+    }
+
+} // class DaoReadBenchmark
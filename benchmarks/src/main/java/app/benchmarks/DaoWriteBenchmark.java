@@ -0,0 +1,76 @@
+package app.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import app.dao.UserDao;
+import app.models.User;
+
+/**
+ * Inserted rows per second through UserDao.save, one transaction per row,
+ * and through UserDao.saveAll, one batched transaction per block of rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DaoWriteBenchmark {
+
+    private static final int BLOCK_SIZE = 500;
+
+    private ConfigurableApplicationContext context;
+    private UserDao userDao;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        context = EmbeddedApplication.start("writes");
+        userDao = context.getBean(UserDao.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public User save() {
+        User user = newUser();
+        userDao.save(user);
+        return user;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK_SIZE)
+    public List<User> saveAll() {
+        List<User> users = new ArrayList<User>(BLOCK_SIZE);
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            users.add(newUser());
+        }
+        userDao.saveAll(users);
+        return users;
+    }
+
+    private User newUser() {
+        long n = sequence++;
+        return new User("user" + n + "@example.com", "User " + n);
+    }
+
+} // class DaoWriteBenchmark
@@ -0,0 +1,57 @@
+package app.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import app.Application;
+
+/**
+ * Start the application against an H2 database whose schema Hibernate
+ * creates.
+ */
+final class EmbeddedApplication {
+
+    private EmbeddedApplication() {
+    }
+
+    /**
+     * Start without a web server against a fresh in-memory database.
+     */
+    static ConfigurableApplicationContext start(String databaseName) {
+        return start(false, "jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1");
+    }
+
+    /**
+     * Start against the given H2 URL, passing any extra arguments through.
+     */
+    static ConfigurableApplicationContext start(boolean web, String url, String... extraArgs) {
+        // Arguments, unlike default properties, take precedence over
+        // application.properties.
+        List<String> args = new ArrayList<String>(Arrays.asList(
+                "--db.driver=org.h2.Driver",
+                "--db.url=" + url,
+                "--db.username=sa",
+                "--db.connection-properties=MODE=PostgreSQL",
+                "--hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--hibernate.hbm2ddl.auto=create",
+                "--hibernate.show_sql=false",
+                // Load is generated from a single address.
+                "--rate-limit.mode=off",
+                // Benchmark threads may outnumber the DAO concurrency limit;
+                // count them over it, but keep the overhead of tracking.
+                "--dao.concurrency.mode=observe",
+                "--logging.level.root=WARN"));
+        args.addAll(Arrays.asList(extraArgs));
+        return new SpringApplicationBuilder(Application.class)
+                .web(web)
+                .logStartupInfo(false)
+                .bannerMode(Banner.Mode.OFF)
+                .run(args.toArray(new String[args.size()]));
+    }
+
+} // class EmbeddedApplication
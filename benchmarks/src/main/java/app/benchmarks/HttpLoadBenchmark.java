@@ -0,0 +1,139 @@
+package app.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import app.dao.KeysetPage;
+import app.dao.UserDao;
+import app.models.User;
+
+/**
+ * HTTP throughput at high concurrency under web.execution-mode platform and
+ * virtual. The database sits behind a proxy that adds round-trip latency, and
+ * 400 clients run a mix of page queries, which need a pooled connection, and
+ * single-user reads served from the second-level cache.
+ *
+ * With platform threads the page queries occupy the container's threads
+ * while they wait for a connection, and the cached reads queue behind them.
+ * With virtual threads only the page queries wait, on the connection pool.
+ * The virtual mode needs Java 21.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dhttp.maxConnections=1024")
+public class HttpLoadBenchmark {
+
+    private static final int USERS = 1000;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param({"2"})
+    public int dbLatencyMs;
+
+    private Server database;
+    private DelayingProxy proxy;
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+    private int[] ids;
+
+    @Setup
+    public void setUp() throws Exception {
+        database = Server.createTcpServer("-tcpPort", Integer.toString(freePort())).start();
+        proxy = new DelayingProxy(database.getPort(), dbLatencyMs, TimeUnit.MILLISECONDS);
+        context = EmbeddedApplication.start(true,
+                "jdbc:h2:tcp://localhost:" + proxy.getPort() + "/mem:load;DB_CLOSE_DELAY=-1",
+                "--server.port=0",
+                "--web.execution-mode=" + mode);
+        int port = ((EmbeddedWebApplicationContext) context).getEmbeddedServletContainer().getPort();
+        baseUrl = "http://localhost:" + port;
+
+        List<User> users = new ArrayList<User>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User("user" + i + "@example.com", "User " + i));
+        }
+        context.getBean(UserDao.class).saveAll(users);
+        ids = new int[USERS];
+        for (int i = 0; i < USERS; i++) {
+            ids[i] = users.get(i).getId();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        proxy.close();
+        database.stop();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(300)
+    public int page() throws IOException {
+        String cursor = KeysetPage.encodeCursor(randomId());
+        return get("/user?limit=" + PAGE_SIZE + "&after=" + cursor);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(100)
+    public int cachedUser() throws IOException {
+        return get("/user/" + randomId());
+    }
+
+    private int randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private int get(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        int status = connection.getResponseCode();
+        if (status != HttpURLConnection.HTTP_OK) {
+            throw new IllegalStateException("GET " + path + " returned " + status);
+        }
+        // Read to the end so that the connection is kept alive for reuse.
+        byte[] buffer = new byte[8192];
+        try (InputStream in = connection.getInputStream()) {
+            while (in.read(buffer) >= 0) {
+                // discard
+            }
+        }
+        return status;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+} // class HttpLoadBenchmark
@@ -0,0 +1,137 @@
+package app.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Restrictions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import app.dao.UserDao;
+import app.models.User;
+
+/**
+ * Looking up one user by email in a session of its own, with the query built
+ * the ways the DAOs have built it: a legacy Criteria, which is translated to
+ * SQL on every call; JPA criteria, rendered to HQL on every call; an HQL
+ * string whose plan is cached; and HQL that is new every time, which pays
+ * for parsing and planning on every call. With a statement cache, a
+ * statement already prepared on the connection is reused.
+ *
+ * The table is small, so that the database's own work stays small next to
+ * the cost of building the query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryPlanBenchmark {
+
+    private static final int USERS = 100;
+    private static final String BY_EMAIL = "from User u where u.email = :email";
+
+    @Param({"0", "1000"})
+    public int statementCacheSize;
+
+    private ConfigurableApplicationContext context;
+    private EntityManagerFactory entityManagerFactory;
+    private SessionFactory sessionFactory;
+    private long uncachedQueries;
+
+    @Setup
+    public void setUp() {
+        context = EmbeddedApplication.start(false, "jdbc:h2:mem:queries;DB_CLOSE_DELAY=-1",
+                "--db.statement-cache.size=" + statementCacheSize);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        List<User> users = new ArrayList<User>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User("user" + i + "@example.com", "User " + i));
+        }
+        context.getBean(UserDao.class).saveAll(users);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private static String randomEmail() {
+        return "user" + ThreadLocalRandom.current().nextInt(USERS) + "@example.com";
+    }
+
+    @Benchmark
+    public Object criteria() {
+        Session session = sessionFactory.openSession();
+        try {
+            return session.createCriteria(User.class)
+                    .add(Restrictions.eq("email", randomEmail()))
+                    .uniqueResult();
+        } finally {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    public Object jpaCriteria() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<User> query = builder.createQuery(User.class);
+            Root<User> root = query.from(User.class);
+            query.where(builder.equal(root.get("email"), randomEmail()));
+            return entityManager.createQuery(query).getSingleResult();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Benchmark
+    public Object cachedHql() {
+        Session session = sessionFactory.openSession();
+        try {
+            return session.createQuery(BY_EMAIL)
+                    .setParameter("email", randomEmail())
+                    .uniqueResult();
+        } finally {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    public Object uncachedHql() {
+        Session session = sessionFactory.openSession();
+        try {
+            long n = ++uncachedQueries;
+            return session.createQuery("from User u where u.email = :email and " + n + " = " + n)
+                    .setParameter("email", randomEmail())
+                    .uniqueResult();
+        } finally {
+            session.close();
+        }
+    }
+
+} // class QueryPlanBenchmark
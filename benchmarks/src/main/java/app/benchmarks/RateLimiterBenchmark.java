@@ -0,0 +1,59 @@
+package app.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.limits.ClientRateLimiter;
+
+/**
+ * Admitting one request, from as many threads as there are processors, at
+ * the default read rate. A single client is over its rate almost at once,
+ * so that case measures rejections; with more clients than are tracked,
+ * most requests add a client and evict another.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(Threads.MAX)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final int MAX_CLIENTS = 100000;
+
+    @Param({"1", "10000", "1000000"})
+    public int clients;
+
+    private ClientRateLimiter limiter;
+    private String[] addresses;
+
+    @Setup
+    public void setUp() {
+        limiter = new ClientRateLimiter(100, 200, MAX_CLIENTS);
+        addresses = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            addresses[i] = "10." + (i >>> 16 & 0xff) + "." + (i >>> 8 & 0xff) + "." + (i & 0xff);
+        }
+    }
+
+    @Benchmark
+    public long acquire() {
+        String address = addresses[ThreadLocalRandom.current().nextInt(addresses.length)];
+        return limiter.acquire(address, System.nanoTime());
+    }
+
+} // class RateLimiterBenchmark
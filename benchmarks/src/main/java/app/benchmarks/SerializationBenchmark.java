@@ -0,0 +1,86 @@
+package app.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+
+import app.models.User;
+
+/**
+ * Jackson serialization of User lists, as written by the user listing
+ * endpoints, with the default ObjectMapper and with the application's tuned
+ * one (Afterburner and NON_NULL inclusion). The gzip variant adds the cost of
+ * the response compression; the sizes of both forms are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"100", "1000"})
+    public int size;
+
+    @Param({"default", "tuned"})
+    public String mapper;
+
+    private ObjectWriter writer;
+    private List<User> users;
+
+    @Setup
+    public void setUp() throws Exception {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if ("tuned".equals(mapper)) {
+            builder.serializationInclusion(JsonInclude.Include.NON_NULL)
+                    .modulesToInstall(new AfterburnerModule());
+        }
+        ObjectMapper objectMapper = builder.build();
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, User.class));
+        users = new ArrayList<User>(size);
+        for (int i = 0; i < size; i++) {
+            User user = new User("user" + i + "@example.com", "User " + i);
+            user.setId(i + 1);
+            users.add(user);
+        }
+        System.out.println("# " + mapper + ": " + writeUsers().length + " bytes, "
+                + writeUsersGzip().length + " bytes gzipped");
+    }
+
+    @Benchmark
+    public byte[] writeUsers() throws Exception {
+        return writer.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] writeUsersGzip() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            writer.writeValue(out, users);
+        }
+        return bytes.toByteArray();
+    }
+
+} // class SerializationBenchmark
@@ -0,0 +1,79 @@
+package app.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.util.TextIndex;
+
+/**
+ * User search against the in-memory index, for a first page of 20 results.
+ * The heap the index takes is printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TextIndexBenchmark {
+
+    private static final String[] FIRST_NAMES = {
+        "James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael", "Linda", "William", "Elizabeth",
+        "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Charles", "Karen"
+    };
+    private static final String[] LAST_NAMES = {
+        "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+        "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin"
+    };
+    private static final String[] DOMAINS = {"example.com", "mail.org", "corp.io", "post.net"};
+
+    @Param({"1000000"})
+    public int users;
+
+    /**
+     * A short prefix with many matches, a prefix of a single email, a
+     * substring of the middle of emails, and a query that matches nothing.
+     */
+    @Param({"jo", "jennifer.lopez417", "ez41", "zzz"})
+    public String query;
+
+    private TextIndex index;
+
+    @Setup
+    public void setUp() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+        index = new TextIndex();
+        Random random = new Random(42);
+        for (int id = 1; id <= users; id++) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            String email = first.toLowerCase() + "." + last.toLowerCase() + id + "@"
+                    + DOMAINS[random.nextInt(DOMAINS.length)];
+            index.put(id, email, first + " " + last);
+        }
+        System.gc();
+        long after = runtime.totalMemory() - runtime.freeMemory();
+        System.out.println("# " + users + " users, " + index.getTermCount() + " terms, about "
+                + (after - before) / users + " bytes per user");
+    }
+
+    @Benchmark
+    public int[] search() {
+        return index.search(query, 0, 21);
+    }
+
+} // class TextIndexBenchmark
@@ -0,0 +1,111 @@
+package app.benchmarks;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.models.User;
+import app.util.Util;
+
+/**
+ * Util hot paths, each next to the implementation it replaced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Entities {
+
+        @Param({"100"})
+        public int size;
+
+        public User user;
+        public List<User> users;
+
+        @Setup
+        public void setUp() {
+            user = new User("user0@example.com", "User 0");
+            user.setId(1);
+            users = new ArrayList<User>(size);
+            for (int i = 0; i < size; i++) {
+                User u = new User("user" + i + "@example.com", "User " + i);
+                u.setId(i + 1);
+                users.add(u);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Iso8601 {
+
+        @Param({
+            "2017-05-14T10:15:30",
+            "2017-05-14T10:15:30.123Z",
+            "2017-05-14 10:15:30+02",
+            "2017-05-14",
+            "2017-05-14T10:15:30+01:00[Europe/Paris]"
+        })
+        public String input;
+    }
+
+    @Benchmark
+    public int getObjectId(Entities state) {
+        return Util.getObjectId(state.user);
+    }
+
+    @Benchmark
+    public int getObjectIdLegacy(Entities state) {
+        return LegacyUtil.getObjectId(state.user);
+    }
+
+    @Benchmark
+    public String dump(Entities state) {
+        return Util.dump(state.users);
+    }
+
+    @Benchmark
+    public String dumpLegacy(Entities state) {
+        return LegacyUtil.dump(state.users);
+    }
+
+    @Benchmark
+    public LocalDateTime dateTimeFromISO8601(Iso8601 state) {
+        return Util.dateTimeFromISO8601(state.input);
+    }
+
+    @Benchmark
+    public LocalDateTime dateTimeFromISO8601Legacy(Iso8601 state) {
+        return parseLegacy(state.input);
+    }
+
+    /**
+     * The legacy parser rejects bare dates, so its failures are part of what
+     * is measured rather than an error.
+     */
+    private static LocalDateTime parseLegacy(String input) {
+        try {
+            return LegacyUtil.dateTimeFromISO8601(input);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+} // class UtilBenchmark